@@ -0,0 +1,52 @@
+package core;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * The common face of every dice bag backend. A {@link DiceSet} draws its dice through this class,
+ * so the same macros roll against an on-heap {@link DiceBag} or an {@link OffHeapDiceBag}.
+ *
+ * <p>Each bag keeps its own cache of recently used macros, which is never saved with the bag.</p>
+ *
+ * @param <D> the type of die the bag hands out
+ */
+public abstract class AbstractDiceBag<D extends Rollable> {
+    private MacroCache<D> macroCache;
+
+    /**
+     * Retrieves a list of dice with the specified number of sides. If the bag does not
+     * contain enough dice, new dice are created and added to the bag to meet the count.
+     *
+     * @param sides the number of sides on the dice
+     * @param count the number of dice to retrieve
+     * @return a list of dice with the specified properties
+     */
+    public abstract List<D> getDice(int sides, int count);
+
+    /**
+     * Saves the bag to a file.
+     *
+     * @param filePath the file path where the bag should be saved
+     * @throws IOException if an I/O error occurs during saving
+     */
+    public abstract void saveBag(String filePath) throws IOException;
+
+    public abstract String getNickname();
+
+    public abstract void setNickname(String nickname);
+
+    /**
+     * Returns the cached macro for a roll expression, parsing it and drawing its dice from
+     * this bag the first time it is seen.
+     *
+     * @param setString the roll expression, e.g. {@code 1d20+5}
+     * @return the macro for the expression
+     */
+    MacroCache.Macro<D> getMacro(String setString) {
+        if (macroCache == null) {
+            macroCache = new MacroCache<>(MacroCache.DEFAULT_CAPACITY);
+        }
+        return macroCache.get(setString, this);
+    }
+}
@@ -1,8 +1,12 @@
 package core;
 
 import java.io.*;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -23,11 +27,14 @@ import java.util.stream.Collectors;
  * @author Kayla Rieck
  * @version .2
  */
-public class DiceBag implements Serializable{
+public class DiceBag extends AbstractDiceBag<Die> implements Serializable{
     @Serial
     private static final long serialVersionUID = 1L;
     private Set<Die> diceCollection;
+    private List<Die> diceByIndex; // Every die in the order it was added
     private String nickname = null;
+    private transient Map<Die, Integer> indices;
+    private transient DiceListener listener;
 
     /**
      * Creates a new {@code core.DiceBag} with the specified nickname.
@@ -36,6 +43,7 @@ public class DiceBag implements Serializable{
      */
     public DiceBag(String nickname){
         diceCollection = new HashSet<>();
+        diceByIndex = new ArrayList<>();
         this.nickname = nickname;
     }
 
@@ -54,6 +62,7 @@ public class DiceBag implements Serializable{
      * @param count the number of dice to retrieve
      * @return a list of dice with the specified properties
      */
+    @Override
     public List<Die> getDice(int sides, int count) {
         List<Die> matches = new java.util.ArrayList<>(diceCollection.stream()
                 .filter(die -> die.getSides() == sides )
@@ -61,7 +70,7 @@ public class DiceBag implements Serializable{
                 .toList());
         while (matches.size() < count) {
             Die die = new Die(sides);
-            diceCollection.add(die);
+            addDie(die);
             matches.add(die);
         }
         return matches;
@@ -70,12 +79,68 @@ public class DiceBag implements Serializable{
 
 
     /**
-     * Adds a die to the dice bag.
+     * Adds a die to the dice bag. The die is given the next free index in the bag.
      *
      * @param die the {@code core.Die} object to add
      */
     public void addDie(Die die) {
-        diceCollection.add(die);
+        if (!diceCollection.add(die)) return;
+        diceByIndex.add(die);
+        if (indices != null) indices.put(die, diceByIndex.size() - 1);
+        if (listener != null) {
+            die.setListener(listener);
+            listener.dieAdded(die);
+        }
+    }
+
+    /**
+     * Returns the die at the given index. Dice are numbered from 0 in the order they were added,
+     * and a die keeps its index when the bag is saved and loaded. Unlike {@link Die#getId()},
+     * an index is never shared by two dice in the same bag.
+     *
+     * @param index the die's index
+     * @return the die at that index
+     * @throws IndexOutOfBoundsException if the bag has no die at that index
+     */
+    public Die getDie(int index) {
+        return diceByIndex.get(index);
+    }
+
+    /**
+     * Returns the index of a die in the bag.
+     *
+     * @param die the die to look for
+     * @return the die's index, or -1 if it is not in the bag
+     */
+    public int getIndex(Die die) {
+        if (indices == null) {
+            indices = new IdentityHashMap<>();
+            for (int i = 0; i < diceByIndex.size(); i++) indices.put(diceByIndex.get(i), i);
+        }
+        return indices.getOrDefault(die, -1);
+    }
+
+    /**
+     * Returns a read-only view of every die in the bag.
+     *
+     * @return the dice in the bag
+     */
+    public Set<Die> getAllDice() {
+        return Collections.unmodifiableSet(diceCollection);
+    }
+
+    /**
+     * Sets the listener told about every die added to the bag and every change to its dice.
+     * Replaces any previous listener; pass null to stop listening. The listener is not saved
+     * with the bag.
+     *
+     * @param listener the listener, or null for none
+     */
+    public void setListener(DiceListener listener) {
+        this.listener = listener;
+        for (Die die : diceCollection) {
+            die.setListener(listener);
+        }
     }
 
 
@@ -89,15 +154,19 @@ public class DiceBag implements Serializable{
     }
 
     /**
-     * Saves the current {@code core.DiceBag} to a file.
+     * Saves the current {@code core.DiceBag} to a file. The file is replaced only once the bag
+     * has been written in full, so a bag lazily loaded from the same path can be saved over it.
      *
      * @param filePath the file path where the bag should be saved
      * @throws IOException if an I/O error occurs during saving
      */
+    @Override
     public void saveBag(String filePath) throws IOException {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(filePath))) {
+        DiceBagFile.replace(filePath, out -> {
+            ObjectOutputStream oos = new ObjectOutputStream(out);
             oos.writeObject(this);
-        }
+            oos.flush();
+        });
     }
 
     /**
@@ -114,6 +183,41 @@ public class DiceBag implements Serializable{
         }
     }
 
+    /**
+     * Saves the current {@code core.DiceBag} to a file in the indexed format, which can be
+     * loaded lazily with {@link #loadBagLazily(String)}.
+     *
+     * @param filePath the file path where the bag should be saved
+     * @throws IOException if an I/O error occurs during saving
+     */
+    public void saveIndexedBag(String filePath) throws IOException {
+        DiceBagFile.write(this, diceByIndex, filePath);
+    }
+
+    /**
+     * Loads a {@code core.DiceBag} saved with {@link #saveIndexedBag(String)}, reading only a
+     * compact index of the dice (id, sides, nickname, seed and current face). Each die's history
+     * is read from the file the first time it is needed, so the bag can start rolling right away
+     * regardless of how much history it holds. The file must stay in place until every die has
+     * been read or the bag has been saved again.
+     *
+     * @param filePath the file path from which the bag should be loaded
+     * @return the loaded {@code core.DiceBag} object
+     * @throws IOException if an I/O error occurs during loading or the file is not an indexed bag
+     */
+    public static DiceBag loadBagLazily(String filePath) throws IOException {
+        return DiceBagFile.readIndex(filePath);
+    }
+
+
+    @Serial
+    private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+        ois.defaultReadObject();
+        if (diceByIndex == null) {
+            // Saved before dice were indexed; number them in whatever order the set gives
+            diceByIndex = new ArrayList<>(diceCollection);
+        }
+    }
 
     /**
      * Returns a string representation of the dice bag, including its nickname and the dice it contains.
@@ -134,6 +238,7 @@ public class DiceBag implements Serializable{
      *
      * @return the nickname of the bag
      */
+    @Override
     public String getNickname() {
         return nickname;
     }
@@ -143,6 +248,7 @@ public class DiceBag implements Serializable{
      *
      * @param nickname the new nickname for the bag
      */
+    @Override
     public void setNickname(String nickname) {
         this.nickname = nickname;
     }
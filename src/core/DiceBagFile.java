@@ -0,0 +1,286 @@
+package core;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import utils.SerializationUtil;
+
+/**
+ * Reads and writes the indexed {@code core.DiceBag} file format used for lazy loading.
+ *
+ * <p>The file is laid out as follows:
+ * <ul>
+ *   <li>a history block for every die: its rolls, then the user behind each roll</li>
+ *   <li>an index with one compact entry per die: id, sides, nickname, seed, current face,
+ *   prefetch block size, generator state if blown on since its last roll, number of rolls and
+ *   the position of its history block</li>
+ *   <li>a footer holding the position of the index and a magic number</li>
+ * </ul>
+ * Keeping the index at the end lets the bag be written in a single pass, and lets a reader
+ * seek straight to it without touching any history.
+ * </p>
+ */
+final class DiceBagFile {
+    private static final int MAGIC = 0x54594D50; // "TYMP"
+    // Version 2 adds each die's prefetch block size to its index entry, version 3 its
+    // generator state when it was saved between a blow and its next roll
+    private static final int VERSION = 3;
+    private static final int FOOTER_SIZE = Long.BYTES + Integer.BYTES;
+
+    private DiceBagFile() {}
+
+    /**
+     * Writes the bag to the given path. The history of a die lazily loaded from an indexed file
+     * and not read since is copied across from that file as is, without reading it into memory,
+     * and the die is then pointed at its copy in the new file. Dice lazily loaded from an earlier
+     * version of the file stay readable until the new file is in place.
+     */
+    static void write(DiceBag bag, Collection<Die> dice, String filePath) throws IOException {
+        String target = Paths.get(filePath).toAbsolutePath().toString();
+        HistoryBlock[] unread = new HistoryBlock[dice.size()];
+        HistoryBlock[] copies = new HistoryBlock[dice.size()];
+        Map<String, RandomAccessFile> sources = new HashMap<>();
+        try {
+            replace(filePath, stream -> writeBag(bag, dice, stream, target, sources, unread, copies));
+        } finally {
+            for (RandomAccessFile source : sources.values()) source.close();
+        }
+
+        // The file the unread histories came from may just have been replaced
+        int i = 0;
+        for (Die die : dice) {
+            if (unread[i] != null) die.relocateHistory(unread[i], copies[i]);
+            i++;
+        }
+    }
+
+    private static void writeBag(DiceBag bag, Collection<Die> dice, OutputStream stream, String target,
+                                 Map<String, RandomAccessFile> sources, HistoryBlock[] unread, HistoryBlock[] copies) throws IOException {
+        long[] historyOffsets = new long[dice.size()];
+        int[] rollCounts = new int[dice.size()];
+        CountingOutputStream counter = new CountingOutputStream(new BufferedOutputStream(stream));
+        DataOutputStream out = new DataOutputStream(counter);
+        int i = 0;
+        for (Die die : dice) {
+            historyOffsets[i] = counter.getCount();
+            if (die.getHistoryLoader() instanceof HistoryBlock block) {
+                RandomAccessFile source = sources.get(block.filePath);
+                if (source == null) {
+                    source = new RandomAccessFile(block.filePath, "r");
+                    sources.put(block.filePath, source);
+                }
+                block.copyTo(source, out);
+                unread[i] = block;
+                copies[i] = new HistoryBlock(target, historyOffsets[i], block.rollCount);
+                rollCounts[i] = block.rollCount;
+            } else {
+                List<Integer> rolls = die.getHistory();
+                List<String> users = die.getUserHistory();
+                for (int roll : rolls) out.writeInt(roll);
+                for (String user : users) writeNullableString(out, user);
+                rollCounts[i] = rolls.size();
+            }
+            i++;
+        }
+
+        long indexOffset = counter.getCount();
+        for (i = 0; i < copies.length; i++) {
+            if (copies[i] != null) copies[i].end = i + 1 < copies.length ? historyOffsets[i + 1] : indexOffset;
+        }
+        out.writeInt(VERSION);
+        writeNullableString(out, bag.getNickname());
+        out.writeInt(dice.size());
+        i = 0;
+        for (Die die : dice) {
+            out.writeInt(die.getId());
+            out.writeInt(die.getSides());
+            writeNullableString(out, die.getNickname());
+            out.writeLong(die.getSeed());
+            out.writeInt(die.getFace());
+            out.writeInt(die.getPrefetchBlockSize());
+            Random blown = die.getBlownGenerator();
+            out.writeBoolean(blown != null);
+            if (blown != null) {
+                byte[] state = SerializationUtil.toBytes(blown);
+                out.writeInt(state.length);
+                out.write(state);
+            }
+            out.writeInt(rollCounts[i]);
+            out.writeLong(historyOffsets[i++]);
+        }
+
+        out.writeLong(indexOffset);
+        out.writeInt(MAGIC);
+        out.flush();
+    }
+
+    /**
+     * Writes a file beside the target and moves it into place, so the target is never left
+     * half written and stays readable while the new contents are produced, e.g. by dice
+     * faulting in their history from it.
+     */
+    static void replace(String filePath, Contents contents) throws IOException {
+        Path target = Paths.get(filePath).toAbsolutePath();
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                contents.writeTo(out);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Produces the contents of a file written by {@link #replace(String, Contents)}.
+     */
+    @FunctionalInterface
+    interface Contents {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Reads only the index of the bag at the given path. Each die's history is read from the
+     * file the first time the die needs it.
+     */
+    static DiceBag readIndex(String filePath) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(filePath, "r")) {
+            if (raf.length() < FOOTER_SIZE) {
+                throw new StreamCorruptedException("Not an indexed dice bag: " + filePath);
+            }
+            raf.seek(raf.length() - FOOTER_SIZE);
+            long indexOffset = raf.readLong();
+            if (raf.readInt() != MAGIC) {
+                throw new StreamCorruptedException("Not an indexed dice bag: " + filePath);
+            }
+
+            raf.seek(indexOffset);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(raf.getChannel())));
+            int version = in.readInt();
+            if (version < 1 || version > VERSION) {
+                throw new StreamCorruptedException("Unsupported dice bag version " + version + ": " + filePath);
+            }
+            DiceBag bag = new DiceBag(readNullableString(in));
+            int count = in.readInt();
+            String source = Paths.get(filePath).toAbsolutePath().toString();
+            HistoryBlock[] blocks = new HistoryBlock[count];
+            for (int i = 0; i < count; i++) {
+                int id = in.readInt();
+                int sides = in.readInt();
+                String nickname = readNullableString(in);
+                long seed = in.readLong();
+                int face = in.readInt();
+                int prefetchBlockSize = version >= 2 ? in.readInt() : 0;
+                Random blown = null;
+                if (version >= 3 && in.readBoolean()) {
+                    byte[] state = new byte[in.readInt()];
+                    in.readFully(state);
+                    blown = SerializationUtil.fromBytes(state, Random.class);
+                }
+                int rollCount = in.readInt();
+                long historyOffset = in.readLong();
+                blocks[i] = new HistoryBlock(source, historyOffset, rollCount);
+                Die die = new Die(id, sides, nickname, seed, face, blocks[i]);
+                if (prefetchBlockSize > 0) die.enablePrefetch(prefetchBlockSize);
+                if (blown != null) die.restoreBlownGenerator(blown);
+                bag.addDie(die);
+            }
+            // History blocks are written back to back in index order, ending where the index begins
+            for (int i = 0; i < count; i++) {
+                blocks[i].end = i + 1 < count ? blocks[i + 1].offset : indexOffset;
+            }
+            return bag;
+        }
+    }
+
+    /**
+     * The location of one die's history block in an indexed file, read the first time the die
+     * needs its history.
+     */
+    private static final class HistoryBlock implements Die.HistoryLoader {
+        private final String filePath;
+        private final long offset;
+        private final int rollCount;
+        private long end;
+
+        HistoryBlock(String filePath, long offset, int rollCount) {
+            this.filePath = filePath;
+            this.offset = offset;
+            this.rollCount = rollCount;
+        }
+
+        @Override
+        public void load(RollHistory history) throws IOException {
+            try (RandomAccessFile raf = new RandomAccessFile(filePath, "r")) {
+                raf.seek(offset);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(raf.getChannel())));
+                int[] rolls = new int[rollCount];
+                for (int i = 0; i < rollCount; i++) rolls[i] = in.readInt();
+                for (int i = 0; i < rollCount; i++) history.add(rolls[i], readNullableString(in));
+            }
+        }
+
+        /**
+         * Copies the block's bytes unread to the given stream.
+         * @param source The block's file, open for reading.
+         */
+        void copyTo(RandomAccessFile source, OutputStream out) throws IOException {
+            source.seek(offset);
+            byte[] buffer = new byte[8192];
+            long remaining = end - offset;
+            while (remaining > 0) {
+                int read = source.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) throw new EOFException("History block cut short in " + filePath);
+                out.write(buffer, 0, read);
+                remaining -= read;
+            }
+        }
+    }
+
+    private static void writeNullableString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    private static String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * Tracks how many bytes have passed through, so history offsets can be recorded without
+     * the {@code int} limit of {@link DataOutputStream#size()}.
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+}
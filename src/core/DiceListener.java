@@ -0,0 +1,48 @@
+package core;
+
+/**
+ * Receives every change made to the dice in a {@link DiceBag}, in the order the changes happen.
+ * Callbacks run on the thread that made the change, after the change is complete.
+ */
+public interface DiceListener {
+    /**
+     * Called when a die is added to the bag, whether newly forged or brought in from elsewhere.
+     *
+     * @param die the die added
+     */
+    void dieAdded(Die die);
+
+    /**
+     * Called after a die is rolled.
+     *
+     * @param die the die rolled
+     * @param user the user who rolled it
+     * @param face the face rolled
+     */
+    void dieRolled(Die die, String user, int face);
+
+    /**
+     * Called after a die's nickname changes.
+     *
+     * @param die the die renamed
+     * @param nickname the new nickname, or null
+     */
+    void dieRenamed(Die die, String nickname);
+
+    /**
+     * Called after a die is set to a face by hand.
+     *
+     * @param die the die set
+     * @param face the face it now shows
+     */
+    void dieFaceSet(Die die, int face);
+
+    /**
+     * Called after a die is blown on. Blowing draws from the die's generator, so it changes
+     * what the die will roll next.
+     *
+     * @param die the die blown on
+     * @param result the value drawn
+     */
+    void dieBlown(Die die, boolean result);
+}
@@ -3,14 +3,18 @@ package core;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
-public class DiceSet implements Serializable {
-    private List<Die> diceCollection; // Ensure core.Die is Serializable
+public class DiceSet<D extends Rollable> implements Serializable {
+    private List<D> diceCollection; // Ensure every core.Rollable in a set is Serializable
     private int fixedBonus;
     private String nickname;
-    private DiceBag db;
+    private AbstractDiceBag<D> db;
+    private transient MacroCache.Macro<D> macro;
+    private transient SumSampler sampler;
+    private transient Random rand;
 
-    public DiceSet(DiceBag db, String setString, String nickname) {
+    public DiceSet(AbstractDiceBag<D> db, String setString, String nickname) {
         this.diceCollection = new ArrayList<>();
         this.nickname = nickname;
         this.db = db;
@@ -20,46 +24,34 @@ public class DiceSet implements Serializable {
         }
     }
 
-    public DiceSet(DiceBag db, String setString) { this(db, setString, ""); }
-    public DiceSet(DiceBag db) { this(db,""); }
+    public DiceSet(AbstractDiceBag<D> db, String setString) { this(db, setString, ""); }
+    public DiceSet(AbstractDiceBag<D> db) { this(db,""); }
 
 
     private void parseString(String setString) {
-        // Split the roll string by "+" to separate components
-        String[] rollElements = setString.split("\\+");
-
-        for (String element : rollElements) {
-            element = element.trim(); // Remove any extra whitespace
-
-            // If it's a bonus (a pure number), add it to the fixedBonus
-            if (element.matches("\\d+")) { // Matches numeric strings
-                fixedBonus += Integer.parseInt(element);
-            }
-            // If it contains "d", parse it as a dice roll
-            else if (element.contains("d")) {
-                String[] parts = element.split("d");
-
-                // Determine the number of dice (default to 1 if not specified)
-                int numDice = parts[0].isEmpty() ? 1 : Integer.parseInt(parts[0]);
-
-                // Determine the number of sides on the dice
-                int sides = Integer.parseInt(parts[1]);
-
-                diceCollection.addAll(db.getDice(sides, numDice));
-            }
-        }
+        // Repeated macros reuse the bag's parsed plan and dice selection
+        macro = db.getMacro(setString);
+        fixedBonus += macro.getPlan().getFixedBonus();
+        diceCollection.addAll(macro.getDice());
     }
 
-    public void addDie(Die die) {
+    public void addDie(D die) {
         diceCollection.add(die);
+        forgetMacro();
     }
 
-    public List<Die> getDiceCollection() {
+    public List<D> getDiceCollection() {
         return diceCollection;
     }
 
-    public void removeDie(Die die){
+    public void removeDie(D die){
         diceCollection.remove(die);
+        forgetMacro();
+    }
+
+    private void forgetMacro() {
+        macro = null;
+        sampler = null;
     }
 
     public int rollAll(){
@@ -70,6 +62,21 @@ public class DiceSet implements Serializable {
         return diceCollection.stream().mapToInt(die->die.roll(user)).sum() + fixedBonus;
     }
 
+    /**
+     * Draws a total for this set without rolling its dice: no die changes face, advances its
+     * seed or records history. Useful for quick previews and simulations of common macros.
+     * @return a total drawn from the same distribution as {@link #rollAll()}
+     */
+    public int sample() {
+        if (sampler == null) {
+            sampler = macro != null
+                    ? macro.getSampler()
+                    : new SumSampler(diceCollection.stream().mapToInt(Rollable::getSides).toArray(), fixedBonus);
+        }
+        if (rand == null) rand = new Random();
+        return sampler.sample(rand);
+    }
+
     public void setNickname(String nickname) { this.nickname = nickname; }
 
     @Override
@@ -37,6 +37,11 @@ public class Die implements Serializable, Rollable{
     private List<Integer> rollHistory;
     private List<String> userHistory;
     private String nickname;
+    private transient HistoryLoader historyLoader;
+    private int prefetchBlockSize;
+    private transient RollBuffer rollBuffer;
+    private transient boolean randAhead;
+    private transient DiceListener listener;
     public final int LUCK_WINDOW=9;
 
     /**
@@ -46,8 +51,9 @@ public class Die implements Serializable, Rollable{
     public Die(int sides){
         LOGGER.log(Level.FINE, "Forging a fresh "+sides+"-sided die");
         this.sides = sides;
-        rollHistory = new ArrayList<>();
-        userHistory = new ArrayList<>();
+        RollHistory history = new RollHistory(sides);
+        rollHistory = history;
+        userHistory = history.users();
         this.nickname = null;
 
         rand = new Random();
@@ -61,6 +67,37 @@ public class Die implements Serializable, Rollable{
 
     }
 
+    /**
+     * Constructs a die from its persisted index entry, deferring its history.
+     * The history is read through {@code historyLoader} the first time it is needed.
+     * @param id The die's id.
+     * @param sides The number of sides for the die.
+     * @param nickname The die's nickname, or null.
+     * @param seed The seed for the die's next roll.
+     * @param face The die's current face.
+     * @param historyLoader Supplies the die's roll and user history on demand.
+     */
+    Die(int id, int sides, String nickname, long seed, int face, HistoryLoader historyLoader){
+        this.id = id;
+        this.sides = sides;
+        this.nickname = nickname;
+        this.seed = seed;
+        this.face = face;
+        this.rand = new Random(seed);
+        this.historyLoader = historyLoader;
+        RollHistory history = new RollHistory(sides);
+        rollHistory = history;
+        userHistory = history.users();
+    }
+
+    /**
+     * Supplies a die's history when it is first needed. Used by lazily loaded dice bags.
+     */
+    @FunctionalInterface
+    interface HistoryLoader {
+        void load(RollHistory history) throws IOException;
+    }
+
     // ========================
     // Getters and Setters
     // ========================
@@ -70,6 +107,7 @@ public class Die implements Serializable, Rollable{
      */
     public void setNickname(String nickname){
         this.nickname = nickname;
+        if(listener != null) listener.dieRenamed(this, nickname);
     }
     /**
      * Retrieves the nickname of the die.
@@ -100,9 +138,100 @@ public class Die implements Serializable, Rollable{
      * @return A list of integers representing the history of rolls.
      */
     public List<Integer> getHistory(){
+        ensureHistoryLoaded();
         return rollHistory;
     }
 
+    /**
+     * Returns the most recent rolls as a primitive array, oldest first, for use in statistics.
+     * @param count The number of rolls wanted.
+     * @return Up to {@code count} of the latest rolls; fewer if the die has not been rolled that often.
+     */
+    public int[] getRecentRolls(int count){
+        ensureHistoryLoaded();
+        RollHistory history = history();
+        return history.toIntArray(Math.max(0, history.size() - count), history.size());
+    }
+
+    /**
+     * Returns the user behind each roll, in the same order as {@link #getHistory()}.
+     * @return A list of user labels.
+     */
+    List<String> getUserHistory(){
+        ensureHistoryLoaded();
+        return userHistory;
+    }
+
+    long getSeed(){
+        return seed;
+    }
+
+    /**
+     * Returns the die's tiered history, converting the plain lists kept by dice saved before
+     * histories were tiered.
+     */
+    private RollHistory history(){
+        if(!(rollHistory instanceof RollHistory)){
+            RollHistory history = RollHistory.of(sides, rollHistory, userHistory);
+            rollHistory = history;
+            userHistory = history.users();
+        }
+        return (RollHistory) rollHistory;
+    }
+
+    /**
+     * Returns the die's generator if it has been blown on since its last roll, when the seed
+     * alone no longer describes what it will roll next.
+     * @return The generator, or null if the seed is up to date.
+     */
+    Random getBlownGenerator(){
+        return randAhead ? rand : null;
+    }
+
+    /**
+     * Restores a generator saved by {@link #getBlownGenerator()}.
+     * @param generator The generator as it was after the blow.
+     */
+    void restoreBlownGenerator(Random generator){
+        dropRollBuffer();
+        this.rand = generator;
+        this.randAhead = true;
+    }
+
+    /**
+     * Returns the loader for the die's history if it was loaded lazily and has not been read yet.
+     * @return The loader, or null if the history is in memory.
+     */
+    HistoryLoader getHistoryLoader(){
+        return historyLoader;
+    }
+
+    /**
+     * Replaces the loader for a history that has not been read yet, e.g. once the bag has been
+     * saved again and the history copied to the new file. Does nothing if the die is no longer
+     * waiting on {@code expected}.
+     * @param expected The loader the die is expected to have.
+     * @param loader The loader to use instead.
+     */
+    void relocateHistory(HistoryLoader expected, HistoryLoader loader){
+        if(historyLoader == expected) historyLoader = loader;
+    }
+
+    /**
+     * Faults in the die's history if it was loaded lazily and has not been read yet.
+     */
+    private void ensureHistoryLoaded(){
+        if(historyLoader == null) return;
+        LOGGER.log(Level.FINE, "Fetching the die's history from the archives");
+        try {
+            historyLoader.load(history());
+        } catch (IOException e) {
+            history().clear();
+            throw new UncheckedIOException("Failed to load history for die " + id, e);
+        }
+        historyLoader = null;
+    }
+
     // ========================
     // Rolling and Superstition
     // ========================
@@ -119,12 +248,21 @@ public class Die implements Serializable, Rollable{
      */
     public int roll(String user){
         LOGGER.log(Level.FINE, "Forging a fresh roll");
-        this.face = rand.nextInt(sides)+1;
+        ensureHistoryLoaded();
+        if(rollBuffer == null && prefetchBlockSize > 0 && !randAhead){
+            rollBuffer = new RollBuffer(sides, seed, prefetchBlockSize);
+        }
+        if(rollBuffer != null){
+            this.face = rollBuffer.nextFace();
+            this.seed = rollBuffer.seed();
+        } else {
+            this.face = rand.nextInt(sides)+1;
+        }
         LOGGER.log(Level.FINE, "Landed on face: " + face);
-        this.rollHistory.add(face);
-        this.userHistory.add(user);
+        history().add(face, user);
         LOGGER.log(Level.FINE, "Added roll to the annals: "+user+" rolled a "+face);
-        updateSeed();
+        if(rollBuffer == null) updateSeed();
+        if(listener != null) listener.dieRolled(this, user, face);
 
         return this.face;
     }
@@ -132,9 +270,57 @@ public class Die implements Serializable, Rollable{
     private void updateSeed(){
         this.seed = rand.nextLong();
         rand.setSeed(seed);
+        randAhead = false;
         LOGGER.log(Level.FINE, "Updated seed: " + seed);
     }
 
+    /**
+     * Has the die precompute its upcoming rolls in blocks of {@code blockSize}, refilled in the
+     * background, so each roll is a buffer read. The faces rolled are exactly those the die would
+     * roll without prefetching, and the setting is kept when the die is saved.
+     * @param blockSize The number of rolls to compute ahead per block.
+     */
+    public void enablePrefetch(int blockSize){
+        if(blockSize < 1) throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+        dropRollBuffer();
+        this.prefetchBlockSize = blockSize;
+        LOGGER.log(Level.FINE, "Prefetching rolls in blocks of " + blockSize);
+    }
+
+    /**
+     * Stops precomputing rolls. The die continues its sequence from its current seed.
+     */
+    public void disablePrefetch(){
+        dropRollBuffer();
+        this.prefetchBlockSize = 0;
+    }
+
+    /**
+     * Returns whether the die precomputes its rolls.
+     * @return True if prefetching is enabled.
+     */
+    public boolean isPrefetching(){
+        return prefetchBlockSize > 0;
+    }
+
+    /**
+     * Returns the number of rolls prefetched per block, or 0 if prefetching is disabled.
+     * @return The prefetch block size.
+     */
+    int getPrefetchBlockSize(){
+        return prefetchBlockSize;
+    }
+
+    /**
+     * Discards any precomputed rolls and brings the die's own generator back in step with its seed.
+     */
+    private void dropRollBuffer(){
+        if(rollBuffer == null) return;
+        rollBuffer.discard();
+        rollBuffer = null;
+        rand.setSeed(seed);
+    }
+
     /**
      * Sets the die's face to a specific value, ensuring it's within the valid range.
      * @param face The value to set the die's face to.
@@ -147,6 +333,7 @@ public class Die implements Serializable, Rollable{
         }
         this.face = face;
         LOGGER.log(Level.FINE, "Set die to: " + face);
+        if(listener != null) listener.dieFaceSet(this, face);
         return true;
     }
 
@@ -163,7 +350,12 @@ public class Die implements Serializable, Rollable{
      */
     public boolean blow(){
         LOGGER.log(Level.FINE,"Blowing on the die");
-        return rand.nextBoolean();
+        // A blow draws from the live generator, which the seed alone no longer describes until the next roll
+        dropRollBuffer();
+        randAhead = true;
+        boolean result = rand.nextBoolean();
+        if(listener != null) listener.dieBlown(this, result);
+        return result;
 
     }
 
@@ -171,6 +363,14 @@ public class Die implements Serializable, Rollable{
         return id;
     }
 
+    /**
+     * Sets the listener told about every change to this die. Used by {@link DiceBag}.
+     * @param listener The listener, or null for none.
+     */
+    void setListener(DiceListener listener){
+        this.listener = listener;
+    }
+
 
     /**
      * Returns a string describing the die, including its basic description and luck.
@@ -193,6 +393,12 @@ public class Die implements Serializable, Rollable{
     private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
         ois.defaultReadObject();
         this.rand = new Random(seed); // Reinitialize Random with the persistent seed
+        try {
+            if(ois.readBoolean()) restoreBlownGenerator((Random) ois.readObject());
+        } catch (EOFException e) {
+            // Saved before generator state was written; the seed is all there is
+        }
+        history();
     }
 
     /**
@@ -202,7 +408,11 @@ public class Die implements Serializable, Rollable{
      */
     @Serial
     private void writeObject(ObjectOutputStream oos) throws IOException {
+        ensureHistoryLoaded();
         oos.defaultWriteObject();
+        // Between a blow and the next roll the generator is ahead of the seed, so save it too
+        oos.writeBoolean(randAhead);
+        if(randAhead) oos.writeObject(rand);
     }
 
     // ========================
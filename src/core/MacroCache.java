@@ -0,0 +1,66 @@
+package core;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bounded, least-recently-used cache of roll macros for one {@link AbstractDiceBag}. Each entry holds
+ * everything needed to roll a macro again without re-deriving it: the parsed {@link RollPlan},
+ * the dice it drew from the bag, and a lazily built {@link SumSampler} for history-free sampling.
+ * Entries are keyed by the expression as normalized by {@link RollPlan#normalize(String)}.
+ * @param <D> The type of die the bag hands out.
+ */
+final class MacroCache<D extends Rollable> {
+    static final int DEFAULT_CAPACITY = 64;
+
+    private final Map<String, Macro<D>> macros;
+
+    MacroCache(int capacity) {
+        this.macros = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Macro<D>> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached macro for an expression, parsing it and drawing its dice on a miss.
+     * @param setString The roll expression.
+     * @param db The bag the macro's dice are drawn from.
+     * @return The macro.
+     */
+    Macro<D> get(String setString, AbstractDiceBag<D> db) {
+        return macros.computeIfAbsent(RollPlan.normalize(setString), key -> new Macro<>(RollPlan.parse(key), db));
+    }
+
+    int size() {
+        return macros.size();
+    }
+
+    static final class Macro<D extends Rollable> {
+        private final RollPlan plan;
+        private final List<D> dice;
+        private SumSampler sampler;
+
+        private Macro(RollPlan plan, AbstractDiceBag<D> db) {
+            this.plan = plan;
+            this.dice = Collections.unmodifiableList(plan.selectDice(db));
+        }
+
+        RollPlan getPlan() {
+            return plan;
+        }
+
+        List<D> getDice() {
+            return dice;
+        }
+
+        SumSampler getSampler() {
+            if (sampler == null) sampler = new SumSampler(plan.getSides(), plan.getFixedBonus());
+            return sampler;
+        }
+    }
+}
@@ -0,0 +1,550 @@
+package core;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import utils.StatsUtil;
+
+/**
+ * The {@code core.OffHeapDiceBag} class is an alternate dice bag backend for very large dice
+ * populations. Instead of one {@link Die} object per die, the state of every die lives in
+ * fixed-width records inside direct {@link ByteBuffer}s, outside the Java heap, and is addressed
+ * by index.
+ *
+ * <p>Each record holds the die's id, number of sides, seed, current face, a running summary of
+ * its rolls (count and sum) and a pointer to its latest history chunk. Roll history is kept in
+ * per-die chunks of {@value #CHUNK_ROLLS} faces, each linked back to the die's previous chunk.
+ * Records and chunks are stored in fixed-size segments that are added as the bag fills, so the
+ * bag never copies its storage to grow and is not bound by the size of a single buffer. History
+ * positions are {@code long}s, so total history is limited only by memory.</p>
+ *
+ * <p>Rolling follows the same seed discipline as {@link Die#roll(String)}: the face is drawn from
+ * a {@link Random} seeded with the die's seed, and the die is then reseeded from the next long of
+ * that generator. A die moved between the two backends with the same seed rolls the same faces.
+ * The off-heap backend does not record who rolled.</p>
+ *
+ * <p>Callers interact with dice through {@link DieView} flyweights, which hold only a reference
+ * to the bag and an index. Views are cheap to create and may be discarded freely.</p>
+ *
+ * <p>Like {@link DiceBag}, this class is not thread-safe.</p>
+ */
+public class OffHeapDiceBag extends AbstractDiceBag<OffHeapDiceBag.DieView> implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    // Die record layout
+    private static final int ID_OFFSET = 0;
+    private static final int SIDES_OFFSET = 4;
+    private static final int SEED_OFFSET = 8;
+    private static final int FACE_OFFSET = 16;
+    private static final int ROLL_COUNT_OFFSET = 20;
+    private static final int ROLL_SUM_OFFSET = 24;
+    private static final int HISTORY_HEAD_OFFSET = 32;
+    private static final int DIE_RECORD_SIZE = 40;
+
+    // History chunk layout
+    private static final int CHUNK_PREVIOUS_OFFSET = 0;
+    private static final int CHUNK_FACES_OFFSET = 8;
+    static final int CHUNK_ROLLS = 14;
+    private static final int CHUNK_SIZE = CHUNK_FACES_OFFSET + CHUNK_ROLLS * Integer.BYTES;
+
+    private static final long NO_HISTORY = -1;
+    private static final int DEFAULT_DICE_PER_SEGMENT = 16384;
+    private static final int DEFAULT_HISTORY_SEGMENT_SIZE = 4 * 1024 * 1024;
+
+    private final int dicePerSegment;
+    private final int historySegmentSize;
+    private String nickname;
+
+    private transient List<ByteBuffer> diceSegments;
+    private transient List<ByteBuffer> historySegments;
+    private transient int size;
+    private transient long historyEnd;
+    private transient Map<Integer, IndexList> diceBySides;
+
+    // Scratch generator, reseeded for every draw so no Random is kept per die
+    private transient Random rand;
+    // Source of ids and starting seeds for freshly forged dice
+    private transient Random forge;
+
+    /**
+     * Creates a new {@code core.OffHeapDiceBag} with the given segment sizes. Used by tests to
+     * exercise segment boundaries with few dice.
+     *
+     * @param nickname the nickname of the dice bag
+     * @param dicePerSegment the number of die records per segment
+     * @param historySegmentSize the size of each history segment, in bytes
+     */
+    OffHeapDiceBag(String nickname, int dicePerSegment, int historySegmentSize) {
+        if (dicePerSegment < 1 || historySegmentSize < CHUNK_SIZE) {
+            throw new IllegalArgumentException("Segments must hold at least one record and one history chunk");
+        }
+        this.nickname = nickname;
+        this.dicePerSegment = dicePerSegment;
+        // Whole chunks only, so no chunk straddles two segments
+        this.historySegmentSize = historySegmentSize - historySegmentSize % CHUNK_SIZE;
+        init();
+    }
+
+    /**
+     * Creates a new {@code core.OffHeapDiceBag} with the specified nickname.
+     *
+     * @param nickname the nickname of the dice bag
+     */
+    public OffHeapDiceBag(String nickname) {
+        this(nickname, DEFAULT_DICE_PER_SEGMENT, DEFAULT_HISTORY_SEGMENT_SIZE);
+    }
+
+    /**
+     * Creates a new {@code core.OffHeapDiceBag} with an empty nickname.
+     */
+    public OffHeapDiceBag() {
+        this("");
+    }
+
+    private void init() {
+        diceSegments = new ArrayList<>();
+        historySegments = new ArrayList<>();
+        diceBySides = new HashMap<>();
+        size = 0;
+        historyEnd = 0;
+        rand = new Random();
+        forge = new Random();
+    }
+
+    // ========================
+    // Dice Management
+    // ========================
+    /**
+     * Forges a new die with the specified number of sides and stores it in the bag.
+     * As with {@link Die}, the new die rests with its highest face up.
+     *
+     * @param sides the number of sides on the die
+     * @return the index of the new die
+     */
+    public int addDie(int sides) {
+        if (sides < 1) {
+            throw new IllegalArgumentException("A die needs at least one side: " + sides);
+        }
+        return addDie(forge.nextInt(), sides, forge.nextLong());
+    }
+
+    /**
+     * Stores a die with an explicit id and seed, for example one copied from an on-heap
+     * {@link Die}. The die starts with no history and its highest face up.
+     *
+     * @param id the id of the die
+     * @param sides the number of sides on the die
+     * @param seed the seed for the die's next roll
+     * @return the index of the new die
+     */
+    public int addDie(int id, int sides, long seed) {
+        if (size == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Off-heap dice bag is full");
+        }
+        if (size == diceSegments.size() * dicePerSegment) {
+            diceSegments.add(allocate((long) dicePerSegment * DIE_RECORD_SIZE));
+        }
+        int index = size++;
+        ByteBuffer segment = segmentOf(index);
+        int base = recordOffset(index);
+        segment.putInt(base + ID_OFFSET, id);
+        segment.putInt(base + SIDES_OFFSET, sides);
+        segment.putLong(base + SEED_OFFSET, seed);
+        segment.putInt(base + FACE_OFFSET, sides);
+        segment.putInt(base + ROLL_COUNT_OFFSET, 0);
+        segment.putLong(base + ROLL_SUM_OFFSET, 0L);
+        segment.putLong(base + HISTORY_HEAD_OFFSET, NO_HISTORY);
+        diceBySides.computeIfAbsent(sides, s -> new IndexList()).add(index);
+        return index;
+    }
+
+    /**
+     * Returns a flyweight view of the die at the given index.
+     *
+     * @param index the index of the die
+     * @return a view of the die
+     */
+    public DieView getDie(int index) {
+        checkIndex(index);
+        return new DieView(this, index);
+    }
+
+    /**
+     * Retrieves views of dice with the specified number of sides. If the bag does not
+     * contain enough dice, new dice are created and added to the bag to meet the count.
+     * Dice are looked up through an index by sides, so the cost does not grow with the bag.
+     *
+     * @param sides the number of sides on the dice
+     * @param count the number of dice to retrieve
+     * @return a list of views of dice with the specified properties
+     */
+    @Override
+    public List<DieView> getDice(int sides, int count) {
+        List<DieView> matches = new ArrayList<>(count);
+        IndexList existing = diceBySides.get(sides);
+        for (int i = 0; existing != null && i < existing.size && matches.size() < count; i++) {
+            matches.add(new DieView(this, existing.indices[i]));
+        }
+        while (matches.size() < count) {
+            matches.add(new DieView(this, addDie(sides)));
+        }
+        return matches;
+    }
+
+    /**
+     * Returns the number of dice in the bag.
+     *
+     * @return the number of dice in the bag
+     */
+    public int size() {
+        return size;
+    }
+
+    // ========================
+    // Rolling
+    // ========================
+    /**
+     * Rolls the die at the given index, records the result and reseeds the die.
+     *
+     * @param index the index of the die
+     * @return the face value of the die after the roll
+     */
+    public int roll(int index) {
+        checkIndex(index);
+        ByteBuffer segment = segmentOf(index);
+        int base = recordOffset(index);
+        int sides = segment.getInt(base + SIDES_OFFSET);
+
+        rand.setSeed(segment.getLong(base + SEED_OFFSET));
+        int face = rand.nextInt(sides) + 1;
+        segment.putLong(base + SEED_OFFSET, rand.nextLong());
+
+        recordRoll(segment, base, face);
+        return face;
+    }
+
+    private void recordRoll(ByteBuffer segment, int base, int face) {
+        int count = segment.getInt(base + ROLL_COUNT_OFFSET);
+        long chunk = segment.getLong(base + HISTORY_HEAD_OFFSET);
+        if (count % CHUNK_ROLLS == 0) {
+            chunk = allocateChunk(chunk);
+            segment.putLong(base + HISTORY_HEAD_OFFSET, chunk);
+        }
+        historySegment(chunk).putInt(chunkOffset(chunk) + CHUNK_FACES_OFFSET + (count % CHUNK_ROLLS) * Integer.BYTES, face);
+
+        segment.putInt(base + FACE_OFFSET, face);
+        segment.putInt(base + ROLL_COUNT_OFFSET, count + 1);
+        segment.putLong(base + ROLL_SUM_OFFSET, segment.getLong(base + ROLL_SUM_OFFSET) + face);
+    }
+
+    private long allocateChunk(long previous) {
+        if (historyEnd == (long) historySegments.size() * historySegmentSize) {
+            historySegments.add(allocate(historySegmentSize));
+        }
+        long chunk = historyEnd;
+        historyEnd += CHUNK_SIZE;
+        historySegment(chunk).putLong(chunkOffset(chunk) + CHUNK_PREVIOUS_OFFSET, previous);
+        return chunk;
+    }
+
+    // ========================
+    // Getters and Setters
+    // ========================
+    public int getId(int index) {
+        checkIndex(index);
+        return segmentOf(index).getInt(recordOffset(index) + ID_OFFSET);
+    }
+
+    public int getSides(int index) {
+        checkIndex(index);
+        return segmentOf(index).getInt(recordOffset(index) + SIDES_OFFSET);
+    }
+
+    public long getSeed(int index) {
+        checkIndex(index);
+        return segmentOf(index).getLong(recordOffset(index) + SEED_OFFSET);
+    }
+
+    public int getFace(int index) {
+        checkIndex(index);
+        return segmentOf(index).getInt(recordOffset(index) + FACE_OFFSET);
+    }
+
+    /**
+     * Sets the face of the die at the given index, ensuring it's within the valid range.
+     *
+     * @param index the index of the die
+     * @param face the value to set the die's face to
+     * @return true if the face was successfully set, false if the value was out of range
+     */
+    public boolean setFace(int index, int face) {
+        int sides = getSides(index);
+        if ((0 >= face) || (face >= sides + 1)) {
+            return false;
+        }
+        segmentOf(index).putInt(recordOffset(index) + FACE_OFFSET, face);
+        return true;
+    }
+
+    public int getRollCount(int index) {
+        checkIndex(index);
+        return segmentOf(index).getInt(recordOffset(index) + ROLL_COUNT_OFFSET);
+    }
+
+    public long getRollSum(int index) {
+        checkIndex(index);
+        return segmentOf(index).getLong(recordOffset(index) + ROLL_SUM_OFFSET);
+    }
+
+    /**
+     * Returns the roll history of the die at the given index, oldest roll first.
+     *
+     * @param index the index of the die
+     * @return the faces rolled by the die
+     */
+    public int[] getHistory(int index) {
+        int[] rolls = new int[getRollCount(index)];
+        long chunk = segmentOf(index).getLong(recordOffset(index) + HISTORY_HEAD_OFFSET);
+        // The latest chunk may be partly filled; every earlier one is full
+        int filled = rolls.length == 0 ? 0 : (rolls.length - 1) % CHUNK_ROLLS + 1;
+        int end = rolls.length;
+        while (end > 0) {
+            ByteBuffer segment = historySegment(chunk);
+            int base = chunkOffset(chunk) + CHUNK_FACES_OFFSET;
+            for (int i = filled - 1; i >= 0; i--) {
+                rolls[--end] = segment.getInt(base + i * Integer.BYTES);
+            }
+            chunk = segment.getLong(chunkOffset(chunk) + CHUNK_PREVIOUS_OFFSET);
+            filled = CHUNK_ROLLS;
+        }
+        return rolls;
+    }
+
+    @Override
+    public String getNickname() {
+        return nickname;
+    }
+
+    @Override
+    public void setNickname(String nickname) {
+        this.nickname = nickname;
+    }
+
+    @Override
+    public String toString() {
+        return "core.OffHeapDiceBag{" +
+                "nickname='" + nickname + '\'' +
+                ", size=" + size +
+                '}';
+    }
+
+    // ========================
+    // Storage
+    // ========================
+    private ByteBuffer segmentOf(int index) {
+        return diceSegments.get(index / dicePerSegment);
+    }
+
+    private int recordOffset(int index) {
+        return (index % dicePerSegment) * DIE_RECORD_SIZE;
+    }
+
+    private ByteBuffer historySegment(long chunk) {
+        return historySegments.get((int) (chunk / historySegmentSize));
+    }
+
+    private int chunkOffset(long chunk) {
+        return (int) (chunk % historySegmentSize);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("No die at index " + index + " in a bag of " + size);
+        }
+    }
+
+    private static ByteBuffer allocate(long bytes) {
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Segment too large: " + bytes + " bytes");
+        }
+        return ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * The indices of every die with a given number of sides, in the order they were added.
+     */
+    private static final class IndexList {
+        private int[] indices = new int[4];
+        private int size;
+
+        void add(int index) {
+            if (size == indices.length) indices = Arrays.copyOf(indices, size * 2);
+            indices[size++] = index;
+        }
+    }
+
+    // ========================
+    // Readers and Writers
+    // ========================
+    /**
+     * Saves the current {@code core.OffHeapDiceBag} to a file.
+     *
+     * @param filePath the file path where the bag should be saved
+     * @throws IOException if an I/O error occurs during saving
+     */
+    @Override
+    public void saveBag(String filePath) throws IOException {
+        try (ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(filePath)))) {
+            oos.writeObject(this);
+        }
+    }
+
+    /**
+     * Loads a {@code core.OffHeapDiceBag} from a file.
+     *
+     * @param filePath the file path from which the bag should be loaded
+     * @return the loaded {@code core.OffHeapDiceBag} object
+     * @throws IOException if an I/O error occurs during loading
+     * @throws ClassNotFoundException if the class definition cannot be found during deserialization
+     */
+    public static OffHeapDiceBag loadBag(String filePath) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(new FileInputStream(filePath)))) {
+            return (OffHeapDiceBag) ois.readObject();
+        }
+    }
+
+    /**
+     * Serializes the bag one die at a time: each die's record followed by its history.
+     * @param oos The ObjectOutputStream used for serialization.
+     * @throws IOException If an I/O error occurs.
+     */
+    @Serial
+    private void writeObject(ObjectOutputStream oos) throws IOException {
+        oos.defaultWriteObject();
+        oos.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            oos.writeInt(getId(i));
+            oos.writeInt(getSides(i));
+            oos.writeLong(getSeed(i));
+            oos.writeInt(getFace(i));
+            int[] rolls = getHistory(i);
+            oos.writeInt(rolls.length);
+            for (int roll : rolls) oos.writeInt(roll);
+        }
+    }
+
+    /**
+     * Rebuilds the off-heap storage from the serialized dice.
+     * @param ois The ObjectInputStream used for deserialization.
+     * @throws IOException If an I/O error occurs.
+     * @throws ClassNotFoundException If the class cannot be found.
+     */
+    @Serial
+    private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+        ois.defaultReadObject();
+        init();
+        int count = ois.readInt();
+        for (int i = 0; i < count; i++) {
+            int index = addDie(ois.readInt(), ois.readInt(), ois.readLong());
+            int face = ois.readInt();
+            ByteBuffer segment = segmentOf(index);
+            int base = recordOffset(index);
+            int rolls = ois.readInt();
+            for (int r = 0; r < rolls; r++) recordRoll(segment, base, ois.readInt());
+            segment.putInt(base + FACE_OFFSET, face);
+        }
+    }
+
+    // ========================
+    // Flyweight
+    // ========================
+    /**
+     * A lightweight {@link Rollable} view of a single die in an {@code OffHeapDiceBag}.
+     * The view holds no die state of its own; every call reads or writes the bag's buffers.
+     */
+    public static final class DieView implements Rollable, Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+        private final OffHeapDiceBag bag;
+        private final int index;
+
+        private DieView(OffHeapDiceBag bag, int index) {
+            this.bag = bag;
+            this.index = index;
+        }
+
+        @Override
+        public int roll() {
+            return bag.roll(index);
+        }
+
+        /**
+         * Rolls the die. The off-heap backend does not record the user.
+         */
+        @Override
+        public int roll(String user) {
+            return bag.roll(index);
+        }
+
+        @Override
+        public int getResult() {
+            return bag.getFace(index);
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public int getId() {
+            return bag.getId(index);
+        }
+
+        @Override
+        public int getSides() {
+            return bag.getSides(index);
+        }
+
+        public int getFace() {
+            return bag.getFace(index);
+        }
+
+        public int[] getHistory() {
+            return bag.getHistory(index);
+        }
+
+        /**
+         * Returns the mean of the die's rolls, or the expected mean if it has never been rolled.
+         * @return the mean roll of the die
+         */
+        public double getMean() {
+            int count = bag.getRollCount(index);
+            if (count == 0) {
+                return StatsUtil.getExpectedMeanRoll(bag.getSides(index));
+            }
+            return bag.getRollSum(index) / (double) count;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof DieView other && other.bag == bag && other.index == index;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(bag) * 31 + index;
+        }
+
+        @Override
+        public String toString() {
+            return "A " + getSides() + "-sided die, resting on " + getFace() + ".";
+        }
+    }
+}
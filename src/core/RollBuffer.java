@@ -0,0 +1,103 @@
+package core;
+
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Precomputes a die's upcoming faces in blocks, so a roll becomes a read from a primitive array.
+ *
+ * <p>A die's next face depends only on its seed: the face is drawn from a {@link Random} seeded
+ * with it, and the next seed is the generator's following long. A block therefore replays exactly
+ * what {@link Die#roll(String)} would do, recording the face and the seed after each roll. While
+ * one block is being consumed, the next is filled on a background thread from the last seed of
+ * the current one.</p>
+ *
+ * <p>The buffer is owned by a single die and, like {@link Die}, is not safe for concurrent use.
+ * Only the block computation runs in the background, and it touches no shared state.</p>
+ */
+final class RollBuffer {
+    private static final ExecutorService REFILLER = Executors.newFixedThreadPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2),
+            task -> {
+                Thread thread = new Thread(task, "tymora-roll-refill");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private final int sides;
+    private final int blockSize;
+    private Block current;
+    private CompletableFuture<Block> next;
+    private int cursor;
+
+    /**
+     * Creates a buffer for a die with the given number of sides, starting from its current seed.
+     * @param sides The number of sides on the die.
+     * @param seed The die's current seed.
+     * @param blockSize The number of rolls computed per block.
+     */
+    RollBuffer(int sides, long seed, int blockSize) {
+        this.sides = sides;
+        this.blockSize = blockSize;
+        this.current = Block.fill(sides, seed, blockSize);
+        this.next = refill(current);
+    }
+
+    /**
+     * Consumes the next precomputed roll.
+     * @return The face rolled.
+     */
+    int nextFace() {
+        if (cursor == blockSize) {
+            current = next.join();
+            next = refill(current);
+            cursor = 0;
+        }
+        return current.faces[cursor++];
+    }
+
+    /**
+     * Returns the die's seed after the most recently consumed roll.
+     * @return The seed for the die's next roll.
+     */
+    long seed() {
+        return current.seeds[cursor - 1];
+    }
+
+    /**
+     * Abandons any refill still in progress. The buffer must not be used afterwards.
+     */
+    void discard() {
+        next.cancel(false);
+    }
+
+    private CompletableFuture<Block> refill(Block from) {
+        long seed = from.seeds[blockSize - 1];
+        return CompletableFuture.supplyAsync(() -> Block.fill(sides, seed, blockSize), REFILLER);
+    }
+
+    private static final class Block {
+        private final int[] faces;
+        private final long[] seeds;
+
+        private Block(int[] faces, long[] seeds) {
+            this.faces = faces;
+            this.seeds = seeds;
+        }
+
+        static Block fill(int sides, long seed, int size) {
+            int[] faces = new int[size];
+            long[] seeds = new long[size];
+            Random rand = new Random();
+            for (int i = 0; i < size; i++) {
+                rand.setSeed(seed);
+                faces[i] = rand.nextInt(sides) + 1;
+                seed = rand.nextLong();
+                seeds[i] = seed;
+            }
+            return new Block(faces, seeds);
+        }
+    }
+}
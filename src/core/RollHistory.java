@@ -0,0 +1,248 @@
+package core;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * The roll history of a single die, tiered so that old rolls cost a few bits each.
+ *
+ * <p>The most recent rolls live in a small hot tail of plain arrays, which is where luck and
+ * recent-session lookups land. The tail starts empty and grows as the die is rolled, so a die
+ * that is rarely rolled pays only for the rolls it has. Once the tail fills, its oldest {@value #BLOCK_SIZE} rolls are
+ * frozen into a cold block: faces are bit-packed using only as many bits as the die needs (five
+ * for a d20), and the user behind each roll is run-length encoded, since the same user usually
+ * rolls a die several times in a row. Cold entries are decoded on demand when read.</p>
+ *
+ * <p>The class is a read-only {@link List} of faces, oldest first, so callers of
+ * {@link Die#getHistory()} see an ordinary list. New rolls are appended with
+ * {@link #add(int, String)}, and {@link #users()} gives a matching view of the users.</p>
+ */
+final class RollHistory extends AbstractList<Integer> implements RandomAccess, Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+    static final int BLOCK_SIZE = 128;
+    // Once full, the hot tail holds between one and two blocks' worth of rolls
+    static final int HOT_CAPACITY = 2 * BLOCK_SIZE;
+    private static final int INITIAL_HOT_CAPACITY = 4;
+    private static final int[] NO_FACES = {};
+    private static final String[] NO_USERS = {};
+
+    private final int bitsPerFace;
+    private List<ColdBlock> coldBlocks = List.of();
+    private int[] hotFaces = NO_FACES;
+    private String[] hotUsers = NO_USERS;
+    private int hotSize;
+    private final Users users = new Users(this);
+
+    /**
+     * Creates an empty history for a die with the given number of sides.
+     * @param sides The number of sides on the die.
+     */
+    RollHistory(int sides) {
+        this.bitsPerFace = Math.max(1, Integer.SIZE - Integer.numberOfLeadingZeros(sides - 1));
+    }
+
+    /**
+     * Builds a tiered history from plain roll and user lists, as kept by older saved dice.
+     * Missing users are recorded as null.
+     */
+    static RollHistory of(int sides, List<Integer> rolls, List<String> userList) {
+        RollHistory history = new RollHistory(sides);
+        for (int i = 0; i < rolls.size(); i++) {
+            history.add(rolls.get(i), userList != null && i < userList.size() ? userList.get(i) : null);
+        }
+        return history;
+    }
+
+    /**
+     * Records a roll.
+     * @param face The face rolled.
+     * @param user The user who rolled it.
+     */
+    void add(int face, String user) {
+        if (hotSize == HOT_CAPACITY) freezeOldest();
+        else if (hotSize == hotFaces.length) growHot();
+        hotFaces[hotSize] = face;
+        hotUsers[hotSize] = user;
+        hotSize++;
+        modCount++;
+    }
+
+    private void growHot() {
+        int capacity = Math.min(HOT_CAPACITY, Math.max(INITIAL_HOT_CAPACITY, hotFaces.length * 2));
+        hotFaces = Arrays.copyOf(hotFaces, capacity);
+        hotUsers = Arrays.copyOf(hotUsers, capacity);
+    }
+
+    private void freezeOldest() {
+        if (coldBlocks.isEmpty()) coldBlocks = new ArrayList<>();
+        coldBlocks.add(new ColdBlock(hotFaces, hotUsers, BLOCK_SIZE, bitsPerFace));
+        System.arraycopy(hotFaces, BLOCK_SIZE, hotFaces, 0, hotSize - BLOCK_SIZE);
+        System.arraycopy(hotUsers, BLOCK_SIZE, hotUsers, 0, hotSize - BLOCK_SIZE);
+        Arrays.fill(hotUsers, hotSize - BLOCK_SIZE, hotSize, null);
+        hotSize -= BLOCK_SIZE;
+    }
+
+    @Override
+    public Integer get(int index) {
+        return getFace(index);
+    }
+
+    /**
+     * Returns the face of the roll at the given position, oldest first.
+     * @param index The position of the roll.
+     * @return The face rolled.
+     */
+    int getFace(int index) {
+        int coldSize = coldSize();
+        if (index >= coldSize) {
+            Objects.checkIndex(index - coldSize, hotSize);
+            return hotFaces[index - coldSize];
+        }
+        Objects.checkIndex(index, coldSize);
+        return coldBlocks.get(index / BLOCK_SIZE).getFace(index % BLOCK_SIZE);
+    }
+
+    /**
+     * Returns the user behind the roll at the given position, oldest first.
+     * @param index The position of the roll.
+     * @return The user who rolled it.
+     */
+    String getUser(int index) {
+        int coldSize = coldSize();
+        if (index >= coldSize) {
+            Objects.checkIndex(index - coldSize, hotSize);
+            return hotUsers[index - coldSize];
+        }
+        Objects.checkIndex(index, coldSize);
+        return coldBlocks.get(index / BLOCK_SIZE).getUser(index % BLOCK_SIZE);
+    }
+
+    @Override
+    public int size() {
+        return coldSize() + hotSize;
+    }
+
+    private int coldSize() {
+        return coldBlocks.size() * BLOCK_SIZE;
+    }
+
+    @Override
+    public void clear() {
+        coldBlocks = List.of();
+        hotFaces = NO_FACES;
+        hotUsers = NO_USERS;
+        hotSize = 0;
+        modCount++;
+    }
+
+    /**
+     * Returns the faces from {@code from} (inclusive) to {@code to} (exclusive) as a primitive
+     * array, without boxing.
+     */
+    int[] toIntArray(int from, int to) {
+        Objects.checkFromToIndex(from, to, size());
+        int[] faces = new int[to - from];
+        int coldEnd = Math.min(to, coldSize());
+        for (int i = from; i < coldEnd; i++) faces[i - from] = getFace(i);
+        int hotFrom = Math.max(from, coldSize());
+        if (to > hotFrom) {
+            System.arraycopy(hotFaces, hotFrom - coldSize(), faces, hotFrom - from, to - hotFrom);
+        }
+        return faces;
+    }
+
+    /**
+     * Returns a read-only view of the users behind each roll, in the same order as the faces.
+     * @return The users behind each roll.
+     */
+    List<String> users() {
+        return users;
+    }
+
+    /**
+     * Returns the number of rolls the hot tail has room for before it next grows or freezes.
+     */
+    int hotCapacity() {
+        return hotFaces.length;
+    }
+
+    /**
+     * Returns the number of frozen blocks.
+     */
+    int coldBlockCount() {
+        return coldBlocks.size();
+    }
+
+    private static final class Users extends AbstractList<String> implements RandomAccess, Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+        private final RollHistory history;
+
+        Users(RollHistory history) {
+            this.history = history;
+        }
+
+        @Override
+        public String get(int index) {
+            return history.getUser(index);
+        }
+
+        @Override
+        public int size() {
+            return history.size();
+        }
+    }
+
+    /**
+     * A frozen block of rolls: faces bit-packed, users run-length encoded.
+     */
+    private static final class ColdBlock implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+        private final long[] packedFaces;
+        private final int bitsPerFace;
+        private final String[] runUsers;
+        private final int[] runEnds; // exclusive end of each run
+
+        ColdBlock(int[] faces, String[] users, int count, int bitsPerFace) {
+            this.bitsPerFace = bitsPerFace;
+            this.packedFaces = new long[(count * bitsPerFace + Long.SIZE - 1) / Long.SIZE];
+            for (int i = 0; i < count; i++) {
+                long value = faces[i] - 1;
+                int bit = i * bitsPerFace;
+                packedFaces[bit / Long.SIZE] |= value << (bit % Long.SIZE);
+                int spill = bit % Long.SIZE + bitsPerFace - Long.SIZE;
+                if (spill > 0) packedFaces[bit / Long.SIZE + 1] |= value >>> (bitsPerFace - spill);
+            }
+
+            List<String> runUserList = new ArrayList<>();
+            List<Integer> runEndList = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                if (i == 0 || !Objects.equals(users[i], users[i - 1])) {
+                    runUserList.add(users[i]);
+                    runEndList.add(i + 1);
+                } else {
+                    runEndList.set(runEndList.size() - 1, i + 1);
+                }
+            }
+            this.runUsers = runUserList.toArray(new String[0]);
+            this.runEnds = runEndList.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        int getFace(int index) {
+            int bit = index * bitsPerFace;
+            long mask = (1L << bitsPerFace) - 1;
+            long value = packedFaces[bit / Long.SIZE] >>> (bit % Long.SIZE);
+            int spill = bit % Long.SIZE + bitsPerFace - Long.SIZE;
+            if (spill > 0) value |= packedFaces[bit / Long.SIZE + 1] << (bitsPerFace - spill);
+            return (int) (value & mask) + 1;
+        }
+
+        String getUser(int index) {
+            int run = Arrays.binarySearch(runEnds, index + 1);
+            return runUsers[run >= 0 ? run : -run - 1];
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The parsed form of a roll expression such as {@code 2d6+1d4+3}: the dice terms to roll, in
+ * order, and the constant bonus to add. Plans are immutable, so one plan can serve every roll of
+ * a macro.
+ */
+final class RollPlan {
+    private final List<int[]> terms; // each term is {count, sides}
+    private final int fixedBonus;
+
+    private RollPlan(List<int[]> terms, int fixedBonus) {
+        this.terms = Collections.unmodifiableList(terms);
+        this.fixedBonus = fixedBonus;
+    }
+
+    /**
+     * Normalizes a roll expression for use as a cache key: whitespace is dropped and dice are
+     * written in lower case, so {@code "1D20 + 5"} and {@code "1d20+5"} share a key.
+     * @param setString The roll expression.
+     * @return The normalized expression.
+     */
+    static String normalize(String setString) {
+        return setString.replaceAll("\\s+", "").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Parses a roll expression into a plan.
+     * @param setString The roll expression, e.g. {@code 1d20+5}.
+     * @return The parsed plan.
+     */
+    static RollPlan parse(String setString) {
+        List<int[]> terms = new ArrayList<>();
+        int fixedBonus = 0;
+
+        // Split the roll string by "+" to separate components
+        for (String element : normalize(setString).split("\\+")) {
+            // If it's a bonus (a pure number), add it to the fixedBonus
+            if (element.matches("\\d+")) {
+                fixedBonus += Integer.parseInt(element);
+            }
+            // If it contains "d", parse it as a dice roll
+            else if (element.contains("d")) {
+                String[] parts = element.split("d");
+
+                // Determine the number of dice (default to 1 if not specified)
+                int numDice = parts[0].isEmpty() ? 1 : Integer.parseInt(parts[0]);
+
+                // Determine the number of sides on the dice
+                int sides = Integer.parseInt(parts[1]);
+
+                terms.add(new int[]{numDice, sides});
+            }
+        }
+        return new RollPlan(terms, fixedBonus);
+    }
+
+    /**
+     * Draws the dice this plan calls for from the bag, in order.
+     * @param db The bag to draw from.
+     * @param <D> The type of die the bag hands out.
+     * @return The selected dice.
+     */
+    <D extends Rollable> List<D> selectDice(AbstractDiceBag<D> db) {
+        List<D> dice = new ArrayList<>();
+        for (int[] term : terms) {
+            dice.addAll(db.getDice(term[1], term[0]));
+        }
+        return dice;
+    }
+
+    int getFixedBonus() {
+        return fixedBonus;
+    }
+
+    /**
+     * Returns the number of sides of every die in the plan, one entry per die.
+     * @return The sides of each die, in order.
+     */
+    int[] getSides() {
+        int[] sides = new int[terms.stream().mapToInt(term -> term[0]).sum()];
+        int i = 0;
+        for (int[] term : terms) {
+            for (int n = 0; n < term[0]; n++) sides[i++] = term[1];
+        }
+        return sides;
+    }
+}
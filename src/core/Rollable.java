@@ -8,6 +8,21 @@ public interface Rollable {
      */
     int roll();
 
+    /**
+     * Rolls the entity on behalf of a user and returns the result.
+     *
+     * @param user the user rolling
+     * @return the result of the roll
+     */
+    int roll(String user);
+
+    /**
+     * Returns the number of sides of the entity.
+     *
+     * @return the number of sides
+     */
+    int getSides();
+
     /**
      * Returns the last result of the roll.
      * Useful for accessing the most recent roll without re-rolling.
@@ -0,0 +1,53 @@
+package core;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import utils.AliasTable;
+import utils.StatsUtil;
+
+/**
+ * Draws totals for a fixed group of dice without rolling any of them: no die is touched, no seed
+ * advances and no history is written. When the distribution of totals is small enough to tabulate,
+ * each total is a single alias-table draw; otherwise the dice are simulated with plain uniform draws.
+ */
+final class SumSampler {
+    // Upper bound on the work spent convolving a distribution before falling back to simulation
+    private static final long MAX_TABLE_WORK = 1_000_000L;
+
+    private final int[] sides;
+    private final int fixedBonus;
+    private final AliasTable table;
+
+    SumSampler(int[] sides, int fixedBonus) {
+        this.sides = sides.clone();
+        this.fixedBonus = fixedBonus;
+        this.table = tableWork(sides) <= MAX_TABLE_WORK && sides.length > 0
+                ? new AliasTable(StatsUtil.getSumDistribution(sides))
+                : null;
+    }
+
+    /**
+     * Draws a total, including the fixed bonus.
+     * @param rand The source of randomness.
+     * @return The total drawn.
+     */
+    int sample(Random rand) {
+        if (table != null) {
+            return sides.length + table.sample(rand) + fixedBonus;
+        }
+        int total = fixedBonus;
+        for (int die : sides) total += rand.nextInt(die) + 1;
+        return total;
+    }
+
+    private static long tableWork(int[] sides) {
+        long work = 0;
+        long range = 1;
+        for (int die : Arrays.stream(sides).sorted().toArray()) {
+            work += range * die;
+            range += die - 1;
+        }
+        return work;
+    }
+}
@@ -0,0 +1,182 @@
+package replication;
+
+import core.DiceBag;
+import utils.SerializationUtil;
+
+import java.io.*;
+import java.net.Socket;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A read-only copy of a {@link DiceBag} kept up to date by a {@link ReplicationPrimary}.
+ *
+ * <p>The replica starts from the primary's snapshot and applies each {@link ReplicationEvent} in
+ * order. Rolls are replayed rather than copied: the replica rolls its own copy of the die, which
+ * lands on the same face because it carries the same seed. If it ever lands on a different face
+ * the replica marks itself diverged and disconnects, since its copy can no longer be trusted;
+ * connecting a new replica starts again from a snapshot.</p>
+ *
+ * <p>Events are applied on a background thread. Queries go through {@link #read(Function)}, which
+ * sees the bag between events, never part way through one. Dice must not be changed through a
+ * replica.</p>
+ */
+public class ReplicaNode implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger( ReplicaNode.class.getName() );
+
+    private final Socket socket;
+    private final Object lock = new Object();
+    private DiceBag bag;
+    private long appliedSequence = -1;
+    private long lagMillis;
+    private volatile boolean connected = true;
+    private volatile boolean diverged;
+
+    /**
+     * Connects to a primary and starts replicating its bag.
+     *
+     * @param host the primary's host
+     * @param port the primary's port
+     * @throws IOException if the primary cannot be reached
+     */
+    public ReplicaNode(String host, int port) throws IOException {
+        this.socket = new Socket(host, port);
+        Thread receiver = new Thread(this::receive, "tymora-replica-" + host + ":" + port);
+        receiver.setDaemon(true);
+        receiver.start();
+    }
+
+    // ========================
+    // Applying Changes
+    // ========================
+    private void receive() {
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream acks = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            in.setObjectInputFilter(SerializationUtil.DICE_FILTER);
+            long snapshotSequence = in.readLong();
+            DiceBag snapshot = SerializationUtil.fromBytes((byte[]) in.readObject(), DiceBag.class);
+            synchronized (lock) {
+                bag = snapshot;
+                appliedSequence = snapshotSequence;
+                lock.notifyAll();
+            }
+            LOGGER.log(Level.INFO, "Loaded snapshot at event " + snapshotSequence);
+            acknowledge(acks, snapshotSequence);
+
+            while (connected) {
+                ReplicationEvent event = (ReplicationEvent) in.readObject();
+                synchronized (lock) {
+                    event.applyTo(bag);
+                    appliedSequence = event.getSequence();
+                    lagMillis = System.currentTimeMillis() - event.getTimestamp();
+                    lock.notifyAll();
+                }
+                acknowledge(acks, event.getSequence());
+            }
+        } catch (IllegalStateException e) {
+            diverged = true;
+            LOGGER.log(Level.SEVERE, "Replica diverged from the primary", e);
+        } catch (IOException | ClassNotFoundException e) {
+            if (connected) LOGGER.log(Level.WARNING, "Lost connection to the primary", e);
+        } finally {
+            synchronized (lock) {
+                connected = false;
+                lock.notifyAll();
+            }
+            closeQuietly();
+        }
+    }
+
+    private static void acknowledge(DataOutputStream acks, long sequence) throws IOException {
+        acks.writeLong(sequence);
+        acks.flush();
+    }
+
+    // ========================
+    // Queries and Metrics
+    // ========================
+    /**
+     * Runs a query against the replicated bag, between events.
+     *
+     * @param query the query to run
+     * @return the query's result
+     * @throws IllegalStateException if no snapshot has arrived yet
+     */
+    public <T> T read(Function<DiceBag, T> query) {
+        synchronized (lock) {
+            if (bag == null) {
+                throw new IllegalStateException("Replica has not received a snapshot yet");
+            }
+            return query.apply(bag);
+        }
+    }
+
+    /**
+     * Waits until the replica has applied the given event.
+     *
+     * @param sequence the sequence number to wait for
+     * @param timeoutMillis how long to wait, in milliseconds
+     * @return true if the event was applied, false if the wait timed out or the replica disconnected
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitSequence(long sequence, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (lock) {
+            while (appliedSequence < sequence && connected) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) return false;
+                lock.wait(remaining);
+            }
+            return appliedSequence >= sequence;
+        }
+    }
+
+    /**
+     * Returns the sequence number of the last event applied.
+     *
+     * @return the last applied sequence number, or -1 before the snapshot arrives
+     */
+    public long getAppliedSequence() {
+        synchronized (lock) {
+            return appliedSequence;
+        }
+    }
+
+    /**
+     * Returns how long the most recently applied event took to reach the replica, from the
+     * primary recording it to the replica applying it.
+     *
+     * @return the replication delay of the last event, in milliseconds
+     */
+    public long getLagMillis() {
+        synchronized (lock) {
+            return lagMillis;
+        }
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    public boolean isDiverged() {
+        return diverged;
+    }
+
+    /**
+     * Disconnects from the primary. The replicated bag stays readable.
+     */
+    @Override
+    public void close() {
+        connected = false;
+        closeQuietly();
+    }
+
+    private void closeQuietly() {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Failed to close connection to the primary", e);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package replication;
+
+import core.DiceBag;
+import core.Die;
+import utils.SerializationUtil;
+
+import java.io.IOException;
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * A single change to a replicated {@code core.DiceBag}, numbered in the order the primary made it.
+ *
+ * <p>Events carry only what a replica cannot work out for itself. A roll ships the face the
+ * primary rolled, but the replica rolls its own copy of the die from the same seed and only uses
+ * the shipped face to check that the two have not drifted apart. A new die ships its full
+ * serialized state, since it may arrive with history of its own.</p>
+ */
+public final class ReplicationEvent implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public enum Type { DIE_ADDED, ROLLED, RENAMED, FACE_SET, BLOWN }
+
+    private final long sequence;
+    private final long timestamp;
+    private final Type type;
+    private final int dieIndex;
+    private final int value;
+    private final String text;
+    private final byte[] dieState;
+
+    private ReplicationEvent(long sequence, Type type, int dieIndex, int value, String text, byte[] dieState) {
+        this.sequence = sequence;
+        this.timestamp = System.currentTimeMillis();
+        this.type = type;
+        this.dieIndex = dieIndex;
+        this.value = value;
+        this.text = text;
+        this.dieState = dieState;
+    }
+
+    static ReplicationEvent dieAdded(long sequence, int dieIndex, byte[] dieState) {
+        return new ReplicationEvent(sequence, Type.DIE_ADDED, dieIndex, 0, null, dieState);
+    }
+
+    static ReplicationEvent rolled(long sequence, int dieIndex, String user, int face) {
+        return new ReplicationEvent(sequence, Type.ROLLED, dieIndex, face, user, null);
+    }
+
+    static ReplicationEvent renamed(long sequence, int dieIndex, String nickname) {
+        return new ReplicationEvent(sequence, Type.RENAMED, dieIndex, 0, nickname, null);
+    }
+
+    static ReplicationEvent faceSet(long sequence, int dieIndex, int face) {
+        return new ReplicationEvent(sequence, Type.FACE_SET, dieIndex, face, null, null);
+    }
+
+    static ReplicationEvent blown(long sequence, int dieIndex, boolean result) {
+        return new ReplicationEvent(sequence, Type.BLOWN, dieIndex, result ? 1 : 0, null, null);
+    }
+
+    public long getSequence() { return sequence; }
+
+    /**
+     * Returns when the primary recorded the event, in milliseconds since the epoch.
+     * @return the time the event was recorded
+     */
+    public long getTimestamp() { return timestamp; }
+
+    public Type getType() { return type; }
+
+    /**
+     * Returns the index of the die changed, as given by {@code core.DiceBag#getIndex}.
+     * @return the die's index in the bag
+     */
+    public int getDieIndex() { return dieIndex; }
+
+    /**
+     * Returns the face rolled or set, or 1 or 0 for the result of a blow.
+     * @return the event's value
+     */
+    int getValue() { return value; }
+
+    /**
+     * Returns the user behind a roll, or the new nickname of a renamed die.
+     * @return the event's text
+     */
+    String getText() { return text; }
+
+    byte[] getDieState() { return dieState; }
+
+    /**
+     * Applies the event to a copy of the primary's bag. Rolls and blows are replayed on the copy's
+     * own die and checked against the primary's result.
+     *
+     * @param bag the copy to change, as of the event before this one
+     * @throws IOException if a new die cannot be read
+     * @throws IllegalStateException if the copy no longer matches the primary
+     */
+    void applyTo(DiceBag bag) throws IOException {
+        switch (type) {
+            case DIE_ADDED -> {
+                Die die = SerializationUtil.fromBytes(dieState, Die.class);
+                bag.addDie(die);
+                if (bag.getIndex(die) != dieIndex) {
+                    throw new IllegalStateException("Event " + sequence + ": die added at index " +
+                            bag.getIndex(die) + " but the primary added it at " + dieIndex);
+                }
+            }
+            case ROLLED -> {
+                int face = die(bag).roll(text);
+                if (face != value) {
+                    throw new IllegalStateException("Event " + sequence + ": die " + dieIndex +
+                            " rolled " + face + " but the primary rolled " + value);
+                }
+            }
+            case RENAMED -> die(bag).setNickname(text);
+            case FACE_SET -> die(bag).setFace(value);
+            case BLOWN -> {
+                boolean result = die(bag).blow();
+                if (result != (value == 1)) {
+                    throw new IllegalStateException("Event " + sequence + ": blowing on die " +
+                            dieIndex + " drew " + result + " but the primary drew " + !result);
+                }
+            }
+        }
+    }
+
+    private Die die(DiceBag bag) {
+        if (dieIndex < 0 || dieIndex >= bag.getAllDice().size()) {
+            throw new IllegalStateException("Event " + sequence + ": unknown die " + dieIndex);
+        }
+        return bag.getDie(dieIndex);
+    }
+
+    @Override
+    public String toString() {
+        return "replication.ReplicationEvent{" +
+                "sequence=" + sequence +
+                ", type=" + type +
+                ", dieIndex=" + dieIndex +
+                '}';
+    }
+}
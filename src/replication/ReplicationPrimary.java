@@ -0,0 +1,390 @@
+package replication;
+
+import core.DiceBag;
+import core.DiceListener;
+import core.Die;
+import utils.SerializationUtil;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.LongFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Ships every change to a {@link DiceBag} to {@link ReplicaNode}s over TCP.
+ *
+ * <p>When the primary starts it takes a snapshot of the bag and begins recording each change as a
+ * numbered {@link ReplicationEvent}. A replica that connects receives the latest snapshot, then
+ * every event recorded since, then live events as they happen. Each replica acknowledges the
+ * events it has applied, so the primary can report how far behind each one is.</p>
+ *
+ * <p>Every {@code checkpointInterval} events the log is folded into a fresh snapshot. The fold
+ * runs on a background thread, which replays the logged events onto a copy of the previous
+ * snapshot the same way a replica would, so the live bag is never serialized and rolling never
+ * waits on it; the log may grow past the interval by however many events arrive while a fold is
+ * running. {@link #checkpoint()} instead snapshots the live bag directly, which takes time in
+ * proportion to the bag's total history. The bag is expected to have a single writer: events are
+ * recorded on the thread that changes the bag, and {@link #checkpoint()} must be called from that
+ * same thread so the snapshot never catches a change half made. A replica that falls more than
+ * {@code maxReplicaBacklog} events behind is disconnected rather than buffered without limit; it
+ * can reconnect and catch up from the latest snapshot.</p>
+ *
+ * <p><b>Trust boundary:</b> replicas are not authenticated, and the snapshot holds every die's
+ * seed, which is enough to predict every future roll. Anyone who can connect can read the whole
+ * bag. By default the primary therefore listens on the loopback address only; bind it to another
+ * address only on a network where every host that can reach the port is trusted.</p>
+ *
+ * <p>The wire protocol is plain Java serialization: the primary sends the snapshot's sequence
+ * number, the snapshot as a byte array, then one {@link ReplicationEvent} per change; the replica
+ * answers with the sequence number of each event it applies.</p>
+ */
+public class ReplicationPrimary implements DiceListener, Closeable {
+    private static final Logger LOGGER = Logger.getLogger( ReplicationPrimary.class.getName() );
+
+    // Each automatic checkpoint replays this many events onto a copy of the previous snapshot
+    static final int DEFAULT_CHECKPOINT_INTERVAL = 10_000;
+    static final int DEFAULT_MAX_REPLICA_BACKLOG = 10_000;
+
+    private final DiceBag bag;
+    private final ServerSocket serverSocket;
+    private final int checkpointInterval;
+    private final int maxReplicaBacklog;
+    private final List<ReplicaSession> sessions = new CopyOnWriteArrayList<>();
+    private final List<ReplicationEvent> log = new ArrayList<>();
+    private byte[] snapshot;
+    private long snapshotSequence;
+    private long lastSequence;
+    private int nextCheckpointLogSize;
+    private boolean checkpointing;
+    private volatile boolean closed;
+
+    /**
+     * Starts replicating the given bag, accepting replicas on the given port of the loopback
+     * address. The bag is snapshotted on the calling thread, which reads the history of every
+     * die in a lazily loaded bag into memory.
+     *
+     * @param bag the bag to replicate
+     * @param port the port to listen on, or 0 for any free port
+     * @throws IOException if the bag cannot be snapshotted or the port cannot be opened
+     */
+    public ReplicationPrimary(DiceBag bag, int port) throws IOException {
+        this(bag, InetAddress.getLoopbackAddress(), port, DEFAULT_CHECKPOINT_INTERVAL, DEFAULT_MAX_REPLICA_BACKLOG);
+    }
+
+    /**
+     * Starts replicating the given bag, accepting replicas on the given address and port.
+     * See the class documentation before binding to anything but the loopback address. The bag
+     * is snapshotted on the calling thread, which reads the history of every die in a lazily
+     * loaded bag into memory.
+     *
+     * @param bag the bag to replicate
+     * @param bindAddress the address to listen on
+     * @param port the port to listen on, or 0 for any free port
+     * @param checkpointInterval the number of events after which the log is folded into a new snapshot
+     * @param maxReplicaBacklog the number of unsent events after which a replica is disconnected
+     * @throws IOException if the bag cannot be snapshotted or the port cannot be opened
+     */
+    public ReplicationPrimary(DiceBag bag, InetAddress bindAddress, int port,
+                              int checkpointInterval, int maxReplicaBacklog) throws IOException {
+        if (checkpointInterval < 1 || maxReplicaBacklog < 1) {
+            throw new IllegalArgumentException("Checkpoint interval and replica backlog must be positive");
+        }
+        this.bag = bag;
+        this.checkpointInterval = checkpointInterval;
+        this.maxReplicaBacklog = maxReplicaBacklog;
+        this.nextCheckpointLogSize = checkpointInterval;
+        this.snapshot = SerializationUtil.toBytes(bag);
+        this.serverSocket = new ServerSocket(port, 50, bindAddress);
+        bag.setListener(this);
+
+        Thread acceptor = new Thread(this::acceptReplicas, "tymora-primary-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        LOGGER.log(Level.INFO, "Replicating " + bag.getNickname() + " on " + bindAddress + ":" + getPort());
+    }
+
+    // ========================
+    // Recording Changes
+    // ========================
+    @Override
+    public void dieAdded(Die die) {
+        int index = indexOf(die);
+        try {
+            byte[] state = SerializationUtil.toBytes(die);
+            publish(sequence -> ReplicationEvent.dieAdded(sequence, index, state));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to record new die " + index, e);
+        }
+    }
+
+    @Override
+    public void dieRolled(Die die, String user, int face) {
+        int index = indexOf(die);
+        publish(sequence -> ReplicationEvent.rolled(sequence, index, user, face));
+    }
+
+    @Override
+    public void dieRenamed(Die die, String nickname) {
+        int index = indexOf(die);
+        publish(sequence -> ReplicationEvent.renamed(sequence, index, nickname));
+    }
+
+    @Override
+    public void dieFaceSet(Die die, int face) {
+        int index = indexOf(die);
+        publish(sequence -> ReplicationEvent.faceSet(sequence, index, face));
+    }
+
+    @Override
+    public void dieBlown(Die die, boolean result) {
+        int index = indexOf(die);
+        publish(sequence -> ReplicationEvent.blown(sequence, index, result));
+    }
+
+    // Dice are named by their index in the bag, which unlike their id is unique
+    private int indexOf(Die die) {
+        int index = bag.getIndex(die);
+        if (index < 0) {
+            throw new IllegalStateException("Die " + die.getId() + " changed but is not in the replicated bag");
+        }
+        return index;
+    }
+
+    private synchronized void publish(LongFunction<ReplicationEvent> factory) {
+        ReplicationEvent event = factory.apply(++lastSequence);
+        log.add(event);
+        for (ReplicaSession session : sessions) {
+            if (!session.queue.offer(event)) {
+                LOGGER.log(Level.WARNING, "Replica " + session.name + " fell more than " + maxReplicaBacklog +
+                        " events behind, disconnecting it");
+                session.close();
+            }
+        }
+        startCheckpointIfDue();
+    }
+
+    private synchronized void startCheckpointIfDue() {
+        if (log.size() >= nextCheckpointLogSize && !checkpointing && !closed) {
+            checkpointing = true;
+            byte[] base = snapshot;
+            long baseSequence = snapshotSequence;
+            List<ReplicationEvent> events = new ArrayList<>(log);
+            Thread folder = new Thread(() -> fold(base, baseSequence, events), "tymora-primary-checkpoint");
+            folder.setDaemon(true);
+            folder.start();
+        }
+    }
+
+    /**
+     * Builds the snapshot that follows {@code events} by replaying them onto a copy of
+     * {@code base}, then installs it in place of the snapshot and events it covers.
+     */
+    private void fold(byte[] base, long baseSequence, List<ReplicationEvent> events) {
+        byte[] folded = null;
+        try {
+            DiceBag copy = SerializationUtil.fromBytes(base, DiceBag.class);
+            for (ReplicationEvent event : events) {
+                event.applyTo(copy);
+            }
+            folded = SerializationUtil.toBytes(copy);
+        } catch (IOException | IllegalStateException e) {
+            LOGGER.log(Level.SEVERE, "Failed to checkpoint at event " + events.getLast().getSequence(), e);
+        }
+        synchronized (this) {
+            checkpointing = false;
+            if (folded == null) {
+                nextCheckpointLogSize = log.size() + checkpointInterval; // Try again later, not on every event
+            } else if (snapshotSequence == baseSequence) { // Unless checkpoint() got there first
+                snapshot = folded;
+                snapshotSequence = events.getLast().getSequence();
+                log.subList(0, events.size()).clear();
+                nextCheckpointLogSize = checkpointInterval;
+                LOGGER.log(Level.FINE, "Checkpointed at event " + snapshotSequence);
+                startCheckpointIfDue(); // Events may have piled up during the replay
+            }
+        }
+    }
+
+    /**
+     * Replaces the snapshot with the bag's current state and discards the events it covers.
+     * Replicas that connect afterwards start from the new snapshot. Call this from the thread
+     * that changes the bag. Unlike the automatic checkpoints, this serializes the live bag on
+     * the calling thread, so it takes time in proportion to the bag's total history.
+     *
+     * @throws IOException if the bag cannot be snapshotted
+     */
+    public synchronized void checkpoint() throws IOException {
+        snapshot = SerializationUtil.toBytes(bag);
+        snapshotSequence = lastSequence;
+        log.clear();
+        nextCheckpointLogSize = checkpointInterval;
+        LOGGER.log(Level.FINE, "Checkpointed at event " + snapshotSequence);
+    }
+
+    // ========================
+    // Metrics
+    // ========================
+    /**
+     * Returns the sequence number of the most recent change.
+     *
+     * @return the latest sequence number, or 0 if nothing has changed
+     */
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Returns how many events each connected replica has yet to acknowledge, keyed by the
+     * replica's address.
+     *
+     * @return the lag of each replica, in events
+     */
+    public synchronized Map<String, Long> getReplicaLag() {
+        Map<String, Long> lag = new LinkedHashMap<>();
+        for (ReplicaSession session : sessions) {
+            lag.put(session.name, lastSequence - session.ackedSequence);
+        }
+        return lag;
+    }
+
+    /**
+     * Returns the number of events recorded since the latest snapshot.
+     *
+     * @return the length of the event log
+     */
+    public synchronized int getLogSize() {
+        return log.size();
+    }
+
+    public int getReplicaCount() {
+        return sessions.size();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    // ========================
+    // Connections
+    // ========================
+    private void acceptReplicas() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                new ReplicaSession(socket).start();
+            } catch (IOException e) {
+                if (!closed) LOGGER.log(Level.WARNING, "Failed to accept replica", e);
+            }
+        }
+    }
+
+    /**
+     * Stops replicating: the bag is no longer watched and every replica is disconnected.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        bag.setListener(null);
+        serverSocket.close();
+        for (ReplicaSession session : sessions) {
+            session.close();
+        }
+    }
+
+    /**
+     * The primary's side of one replica connection: a thread shipping events out and a thread
+     * reading acknowledgements back.
+     */
+    private final class ReplicaSession {
+        private final Socket socket;
+        private final String name;
+        private final BlockingQueue<ReplicationEvent> queue = new LinkedBlockingQueue<>(maxReplicaBacklog);
+        private final Thread sender;
+        private volatile long ackedSequence;
+
+        private ReplicaSession(Socket socket) {
+            this.socket = socket;
+            this.name = socket.getRemoteSocketAddress().toString();
+            this.sender = new Thread(this::ship, "tymora-primary-sender-" + name);
+            this.sender.setDaemon(true);
+        }
+
+        private void start() {
+            sender.start();
+            Thread acknowledger = new Thread(this::readAcks, "tymora-primary-acks-" + name);
+            acknowledger.setDaemon(true);
+            acknowledger.start();
+        }
+
+        private void ship() {
+            byte[] startSnapshot;
+            long startSequence;
+            List<ReplicationEvent> backlog;
+            synchronized (ReplicationPrimary.this) {
+                startSnapshot = snapshot;
+                startSequence = snapshotSequence;
+                backlog = new ArrayList<>(log);
+                sessions.add(this);
+            }
+            LOGGER.log(Level.INFO, "Replica " + name + " connected, catching up from event " + startSequence);
+
+            try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+                out.writeLong(startSequence);
+                out.writeObject(startSnapshot);
+                for (ReplicationEvent event : backlog) {
+                    out.writeObject(event);
+                }
+                while (!closed) {
+                    // Reset between bursts so the stream does not hold on to every event sent
+                    out.reset();
+                    out.flush();
+                    out.writeObject(queue.take());
+                    ReplicationEvent event;
+                    while ((event = queue.poll()) != null) {
+                        out.writeObject(event);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                if (!closed && !socket.isClosed()) LOGGER.log(Level.WARNING, "Lost replica " + name, e);
+            } finally {
+                close();
+            }
+        }
+
+        private void readAcks() {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+                while (true) {
+                    ackedSequence = in.readLong();
+                }
+            } catch (EOFException | SocketException e) {
+                LOGGER.log(Level.FINE, "Replica " + name + " stopped acknowledging");
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to read acknowledgement from replica " + name, e);
+            } finally {
+                close();
+            }
+        }
+
+        private void close() {
+            if (sessions.remove(this)) {
+                LOGGER.log(Level.INFO, "Replica " + name + " disconnected");
+            }
+            sender.interrupt();
+            try {
+                socket.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Failed to close connection to replica " + name, e);
+            }
+        }
+    }
+}
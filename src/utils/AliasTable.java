@@ -0,0 +1,67 @@
+package utils;
+
+import java.util.Random;
+
+/**
+ * Samples from a fixed discrete distribution in constant time using Vose's alias method.
+ * Building the table costs time linear in the number of outcomes; each sample afterwards costs
+ * one uniform index and one uniform double, however skewed the distribution is.
+ */
+public class AliasTable {
+    private final double[] probability;
+    private final int[] alias;
+
+    /**
+     * Builds a table for the given weights. Weights need not sum to one.
+     * @param weights The relative weight of each outcome; outcome {@code i} is returned with
+     *                probability {@code weights[i] / sum(weights)}.
+     */
+    public AliasTable(double[] weights) {
+        int n = weights.length;
+        if (n == 0) throw new IllegalArgumentException("Cannot sample from an empty distribution");
+        double total = 0;
+        for (double weight : weights) {
+            if (weight < 0) throw new IllegalArgumentException("Weights must not be negative: " + weight);
+            total += weight;
+        }
+        if (total <= 0) throw new IllegalArgumentException("Weights must not all be zero");
+
+        probability = new double[n];
+        alias = new int[n];
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallCount = 0, largeCount = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = weights[i] * n / total;
+            if (scaled[i] < 1.0) small[smallCount++] = i;
+            else large[largeCount++] = i;
+        }
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            probability[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = (scaled[more] + scaled[less]) - 1.0;
+            if (scaled[more] < 1.0) small[smallCount++] = more;
+            else large[largeCount++] = more;
+        }
+        // Whatever is left is 1.0 up to rounding error
+        while (largeCount > 0) probability[large[--largeCount]] = 1.0;
+        while (smallCount > 0) probability[small[--smallCount]] = 1.0;
+    }
+
+    /**
+     * Draws an outcome.
+     * @param rand The source of randomness.
+     * @return The index of the outcome drawn.
+     */
+    public int sample(Random rand) {
+        int column = rand.nextInt(probability.length);
+        return rand.nextDouble() < probability[column] ? column : alias[column];
+    }
+
+    public int size() {
+        return probability.length;
+    }
+}
@@ -57,8 +57,8 @@ public class DescriptionGenerator {
         }
 
         // Get the most recent LUCK_WINDOW rolls
-        List<Integer> recentRolls = die.getHistory().subList(die.getHistory().size() - die.LUCK_WINDOW, die.getHistory().size());
-        return StatsUtil.getLuck(recentRolls.stream().mapToInt(Integer::intValue).toArray(),die.getSides());
+        int[] recentRolls = die.getRecentRolls(die.LUCK_WINDOW);
+        return StatsUtil.getLuck(recentRolls,die.getSides());
     }
 
     /*
@@ -0,0 +1,45 @@
+package utils;
+
+import java.io.*;
+
+public class SerializationUtil {
+    /**
+     * Accepts only the classes that make up saved dice, bags and replication events, plus
+     * primitive arrays. Everything else is rejected before it is instantiated, so data from
+     * another process cannot smuggle in arbitrary classes.
+     */
+    public static final ObjectInputFilter DICE_FILTER = ObjectInputFilter.Config.createFilter(
+            "core.*;replication.ReplicationEvent;replication.ReplicationEvent$Type;java.util.*;java.lang.*;!*");
+
+    /**
+     * Serializes an object to a byte array.
+     * @param object The object to serialize.
+     * @return The serialized form of the object.
+     * @throws IOException If the object cannot be serialized.
+     */
+    public static byte[] toBytes(Serializable object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+            oos.writeObject(object);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Deserializes an object written by {@link #toBytes(Serializable)}, accepting only the
+     * classes allowed by {@link #DICE_FILTER}.
+     * @param bytes The serialized form of the object.
+     * @param type The expected type of the object.
+     * @return The deserialized object.
+     * @throws IOException If the bytes cannot be read, hold a class the filter rejects, or hold an
+     *                     object of another type.
+     */
+    public static <T> T fromBytes(byte[] bytes, Class<T> type) throws IOException {
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            ois.setObjectInputFilter(DICE_FILTER);
+            return type.cast(ois.readObject());
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new InvalidObjectException("Expected a serialized " + type.getName() + ": " + e.getMessage());
+        }
+    }
+}
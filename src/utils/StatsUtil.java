@@ -35,4 +35,20 @@ public class StatsUtil {
     public static double getStdDev(int sides){
         return Math.sqrt(getVariance(sides));
     }
+    /**
+     * Returns the probability of each possible total when rolling the given dice together.
+     * Entry {@code i} is the probability of rolling a total of {@code sides.length + i}.
+     */
+    public static double[] getSumDistribution(int[] sides){
+        double[] distribution = {1.0};
+        for (int die : sides) {
+            double[] next = new double[distribution.length + die - 1];
+            for (int total = 0; total < distribution.length; total++) {
+                double share = distribution[total] / die;
+                for (int face = 0; face < die; face++) next[total + face] += share;
+            }
+            distribution = next;
+        }
+        return distribution;
+    }
 }
@@ -0,0 +1,169 @@
+package core;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+public class DiceBagTest {
+
+    private DiceBag bag;
+    private File file;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        bag = new DiceBag("Test Bag");
+        file = File.createTempFile("dicebag", ".bag");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void testLazyLoadRestoresIndexAndHistory() throws IOException {
+        Die die = bag.getDice(20, 1).get(0);
+        die.setNickname("Old Reliable");
+        for (int i = 0; i < 25; i++) die.roll("Daemon");
+        List<Integer> history = new ArrayList<>(die.getHistory());
+        bag.saveIndexedBag(file.getPath());
+
+        DiceBag loaded = DiceBag.loadBagLazily(file.getPath());
+        assertEquals("Test Bag", loaded.getNickname(), "Bag nickname should be restored");
+        Die copy = loaded.getDice(20, 1).get(0);
+        assertEquals(die.getId(), copy.getId(), "Die id should be restored");
+        assertEquals("Old Reliable", copy.getNickname(), "Die nickname should be restored");
+        assertEquals(die.getFace(), copy.getFace(), "Die face should be restored");
+        assertEquals(history, copy.getHistory(), "Die history should be read on demand");
+        assertEquals(List.of("Daemon"), copy.getUserHistory().stream().distinct().toList(), "User history should be read on demand");
+    }
+
+    @Test
+    public void testLazyLoadedDieRollsLikeOriginal() throws IOException {
+        Die die = bag.getDice(6, 1).get(0);
+        die.roll();
+        bag.saveIndexedBag(file.getPath());
+
+        Die copy = DiceBag.loadBagLazily(file.getPath()).getDice(6, 1).get(0);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(die.roll(), copy.roll(), "Restored seed should continue the same sequence");
+        }
+        assertEquals(die.getHistory(), copy.getHistory(), "Faulted history should precede new rolls");
+    }
+
+    @Test
+    public void testLazyLoadKeepsPrefetchSetting() throws IOException {
+        Die die = bag.getDice(20, 1).get(0);
+        die.enablePrefetch(32);
+        die.roll();
+        bag.saveIndexedBag(file.getPath());
+
+        Die copy = DiceBag.loadBagLazily(file.getPath()).getDice(20, 1).get(0);
+        assertTrue(copy.isPrefetching(), "Prefetch setting should be saved in the index");
+        assertEquals(32, copy.getPrefetchBlockSize(), "Prefetch block size should be restored");
+        for (int i = 0; i < 50; i++) {
+            assertEquals(die.roll(), copy.roll(), "Prefetching copy should continue the same sequence");
+        }
+    }
+
+    @Test
+    public void testLazyLoadKeepsBlownGenerator() throws IOException {
+        Die die = bag.getDice(20, 1).get(0);
+        die.roll();
+        die.blow(); // Leaves the generator ahead of the seed
+        bag.saveIndexedBag(file.getPath());
+
+        Die copy = DiceBag.loadBagLazily(file.getPath()).getDice(20, 1).get(0);
+        for (int i = 0; i < 20; i++) {
+            assertEquals(die.roll(), copy.roll(), "Copy saved after a blow should continue the same sequence");
+        }
+    }
+
+    @Test
+    public void testHistoryIsNotReadUntilNeeded() throws IOException {
+        Die die = bag.getDice(6, 1).get(0);
+        die.roll();
+        bag.saveIndexedBag(file.getPath());
+
+        DiceBag loaded = DiceBag.loadBagLazily(file.getPath());
+        Files.write(file.toPath(), new byte[0]); // Pull the history out from under the bag
+        Die copy = loaded.getDice(6, 1).get(0);
+        assertEquals(6, copy.getSides(), "Index data should already be in memory");
+        assertThrows(UncheckedIOException.class, copy::getHistory, "History should only be read on first use");
+    }
+
+    @Test
+    public void testSaveOverLazilyLoadedFile() throws IOException, ClassNotFoundException {
+        Die die = bag.getDice(20, 1).get(0);
+        for (int i = 0; i < 25; i++) die.roll("Daemon");
+        bag.saveIndexedBag(file.getPath());
+
+        DiceBag loaded = DiceBag.loadBagLazily(file.getPath());
+        loaded.saveBag(file.getPath()); // Histories are still read from the file being replaced
+        Die copy = DiceBag.loadBag(file.getPath()).getDice(20, 1).get(0);
+        assertEquals(die.getHistory(), copy.getHistory(), "Saving over the source file should keep every history");
+    }
+
+    @Test
+    public void testResaveCopiesUnreadHistory() throws IOException {
+        Die read = bag.getDice(20, 1).get(0);
+        Die unread = bag.getDice(6, 1).get(0);
+        for (int i = 0; i < 25; i++) {
+            read.roll("Daemon");
+            unread.roll("Daemon");
+        }
+        bag.saveIndexedBag(file.getPath());
+
+        DiceBag loaded = DiceBag.loadBagLazily(file.getPath());
+        loaded.getDice(20, 1).get(0).getHistory();
+        Die copy = loaded.getDice(6, 1).get(0);
+        File other = File.createTempFile("dicebag", ".bag");
+        try {
+            loaded.saveIndexedBag(file.getPath()); // Copies the block out of the file being replaced
+            loaded.saveIndexedBag(other.getPath());
+            assertNotNull(copy.getHistoryLoader(), "Saving should not read an unread history");
+            Files.write(file.toPath(), new byte[0]); // The die should now read from the latest save
+            assertEquals(unread.getHistory(), copy.getHistory(), "Unread history should follow the die to its new file");
+
+            Die reloaded = DiceBag.loadBagLazily(other.getPath()).getDice(6, 1).get(0);
+            assertEquals(unread.getHistory(), reloaded.getHistory(), "Copied history should load from the new file");
+        } finally {
+            other.delete();
+        }
+    }
+
+    @Test
+    public void testIndicesSurviveSaving() throws IOException, ClassNotFoundException {
+        List<Die> dice = new ArrayList<>(bag.getDice(6, 3));
+        dice.addAll(bag.getDice(20, 3));
+        for (int i = 0; i < dice.size(); i++) {
+            assertEquals(i, bag.getIndex(dice.get(i)), "Dice should be numbered in the order they were added");
+            assertSame(dice.get(i), bag.getDie(i), "Each index should name its die");
+        }
+        assertEquals(-1, bag.getIndex(new Die(6)), "Dice outside the bag should have no index");
+
+        bag.saveBag(file.getPath());
+        DiceBag loaded = DiceBag.loadBag(file.getPath());
+        bag.saveIndexedBag(file.getPath());
+        DiceBag lazy = DiceBag.loadBagLazily(file.getPath());
+        for (int i = 0; i < dice.size(); i++) {
+            assertEquals(dice.get(i).getId(), loaded.getDie(i).getId(), "Serialized bags should keep each die's index");
+            assertEquals(dice.get(i).getId(), lazy.getDie(i).getId(), "Indexed bags should keep each die's index");
+            assertEquals(i, lazy.getIndex(lazy.getDie(i)), "Loaded dice should know their index");
+        }
+    }
+
+    @Test
+    public void testLoadRejectsOtherFiles() throws IOException {
+        bag.saveBag(file.getPath());
+        assertThrows(IOException.class, () -> DiceBag.loadBagLazily(file.getPath()), "Serialized bags are not indexed");
+    }
+}
@@ -0,0 +1,91 @@
+package core;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import utils.StatsUtil;
+
+public class DiceSetTest {
+
+    private DiceBag bag;
+
+    @BeforeEach
+    public void setUp() {
+        bag = new DiceBag("Test Bag");
+    }
+
+    @Test
+    public void testParse() {
+        DiceSet<Die> set = new DiceSet<>(bag, "2d6+1d4+3");
+        assertEquals(3, set.getDiceCollection().size(), "Set should hold three dice");
+        int total = set.rollAll();
+        assertTrue(total >= 6 && total <= 19, "Total should include every die and the bonus");
+    }
+
+    @Test
+    public void testRepeatedMacroReusesDice() {
+        DiceSet<Die> first = new DiceSet<>(bag, "1d20+5");
+        DiceSet<Die> second = new DiceSet<>(bag, " 1D20 + 5 ");
+        assertSame(bag.getMacro("1d20+5"), bag.getMacro("1d20 +5"), "Equivalent expressions should share a macro");
+        assertEquals(first.getDiceCollection(), second.getDiceCollection(), "Repeated macros should reuse the same dice");
+    }
+
+    @Test
+    public void testMacroCacheEvictsLeastRecentlyUsed() {
+        MacroCache<Die> cache = new MacroCache<>(2);
+        MacroCache.Macro<Die> d20 = cache.get("1d20", bag);
+        cache.get("1d6", bag);
+        cache.get("1d20", bag);
+        cache.get("1d8", bag); // Evicts 1d6, the least recently used
+        assertEquals(2, cache.size(), "Cache should stay within its capacity");
+        assertSame(d20, cache.get("1d20", bag), "Recently used macro should survive eviction");
+    }
+
+    @Test
+    public void testSampleLeavesDiceUntouched() {
+        DiceSet<Die> set = new DiceSet<>(bag, "8d6+2");
+        for (int i = 0; i < 1000; i++) {
+            int total = set.sample();
+            assertTrue(total >= 10 && total <= 50, "Sampled total should be within the macro's range");
+        }
+        for (Die die : set.getDiceCollection()) {
+            assertTrue(die.getHistory().isEmpty(), "Sampling should not roll any die");
+        }
+    }
+
+    @Test
+    public void testSampleMatchesSumDistribution() {
+        SumSampler sampler = new SumSampler(new int[]{6, 6}, 3);
+        double[] distribution = StatsUtil.getSumDistribution(new int[]{6, 6});
+        double[] frequencies = new double[distribution.length];
+        Random rand = new Random(42);
+        int samples = 200_000;
+        for (int i = 0; i < samples; i++) frequencies[sampler.sample(rand) - 5]++; // 2d6+3 totals start at 5
+        for (int i = 0; i < distribution.length; i++) {
+            assertEquals(distribution[i], frequencies[i] / samples, 0.005, "Total " + (i + 5) + " should be drawn at its exact rate");
+        }
+    }
+
+    @Test
+    public void testSampleFollowsModifiedSet() {
+        DiceSet<Die> set = new DiceSet<>(bag, "1d4");
+        set.sample();
+        set.addDie(bag.getDice(100, 1).get(0));
+        boolean sawLarge = false;
+        for (int i = 0; i < 200; i++) sawLarge |= set.sample() > 4;
+        assertTrue(sawLarge, "Sampling should include dice added after the macro was parsed");
+    }
+
+    @Test
+    public void testMacroOverOffHeapBag() {
+        OffHeapDiceBag offHeap = new OffHeapDiceBag("Off-Heap Bag");
+        DiceSet<OffHeapDiceBag.DieView> set = new DiceSet<>(offHeap, "2d6+3");
+        assertEquals(2, offHeap.size(), "Dice should be drawn from the off-heap bag");
+        int total = set.rollAll("Daemon");
+        assertTrue(total >= 5 && total <= 15, "Total should include every die and the bonus");
+        assertEquals(1, offHeap.getRollCount(0), "Rolling the set should roll the off-heap dice");
+    }
+}
@@ -4,6 +4,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.*;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -27,6 +28,17 @@ public class DieTest {
 
     }
 
+    // Method that copies a die, seed and all, through serialization
+    private static Die copyDie(Die die) throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+            oos.writeObject(die);
+        }
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (Die) ois.readObject();
+        }
+    }
+
     @Test
     public void testConstructor() {
         assertEquals(6, die.getSides(), "core.Die should have 6 sides");
@@ -78,4 +90,67 @@ public class DieTest {
         assertEquals(1, history.size(), "History should contain exactly 1 roll after one roll");
         assertTrue(history.contains(die.getFace()), "History should contain the rolled face");
     }
+
+    @Test
+    public void testPrefetchMatchesUnbufferedRolls() throws IOException, ClassNotFoundException {
+        Die buffered = copyDie(die);
+        buffered.enablePrefetch(8);
+        assertTrue(buffered.isPrefetching(), "Prefetching should be enabled");
+        for (int i = 0; i < 100; i++) {
+            assertEquals(die.roll(), buffered.roll(), "Prefetched rolls should match unbuffered rolls");
+            if (i % 13 == 0) {
+                assertEquals(die.blow(), buffered.blow(), "Blowing should draw the same value in both modes");
+            }
+        }
+        assertEquals(die.getHistory(), buffered.getHistory(), "Histories should be identical");
+    }
+
+    @Test
+    public void testPrefetchResumesAfterSave() throws IOException, ClassNotFoundException {
+        Die buffered = copyDie(die);
+        buffered.enablePrefetch(16);
+        for (int i = 0; i < 5; i++) {
+            die.roll();
+            buffered.roll(); // Stop part way through a block
+        }
+        Die restored = copyDie(buffered);
+        assertTrue(restored.isPrefetching(), "Prefetch setting should be saved with the die");
+        for (int i = 0; i < 40; i++) {
+            assertEquals(die.roll(), restored.roll(), "Restored die should continue the same sequence");
+        }
+        restored.disablePrefetch();
+        assertEquals(die.roll(), restored.roll(), "Disabling prefetch should continue the same sequence");
+    }
+
+    @Test
+    public void testPlainHistoryIsConverted() throws NoSuchFieldException, IllegalAccessException {
+        setRollHistory(die, List.of(2, 4, 6)); // As kept by dice saved before histories were tiered
+        die.roll("Daemon");
+        List<Integer> history = die.getHistory();
+        assertEquals(4, history.size(), "Plain history should carry over when the die rolls again");
+        assertEquals(List.of(2, 4, 6), history.subList(0, 3), "Earlier rolls should be kept in order");
+        assertEquals("Daemon", die.getUserHistory().get(3), "New roll should record its user");
+    }
+
+    @Test
+    public void testRecentRolls() {
+        assertEquals(0, die.getRecentRolls(die.LUCK_WINDOW).length, "An unrolled die should have no recent rolls");
+        for (int i = 0; i < 5; i++) die.roll();
+        assertArrayEquals(die.getHistory().stream().mapToInt(Integer::intValue).toArray(), die.getRecentRolls(die.LUCK_WINDOW), "Short histories should return every roll");
+        for (int i = 0; i < 400; i++) die.roll();
+        List<Integer> history = die.getHistory();
+        assertArrayEquals(history.subList(history.size() - die.LUCK_WINDOW, history.size()).stream().mapToInt(Integer::intValue).toArray(),
+                die.getRecentRolls(die.LUCK_WINDOW), "Recent rolls should be the latest window");
+        assertNotNull(die.toString(), "Description should read luck from the recent rolls");
+    }
+
+    @Test
+    public void testSaveAfterBlow() throws IOException, ClassNotFoundException {
+        die.roll();
+        die.blow(); // Leaves the generator ahead of the seed
+        Die copy = copyDie(die);
+        for (int i = 0; i < 20; i++) {
+            assertEquals(die.roll(), copy.roll(), "Copy saved after a blow should continue the same sequence");
+        }
+    }
 }
@@ -0,0 +1,130 @@
+package core;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+public class OffHeapDiceBagTest {
+
+    private OffHeapDiceBag bag;
+
+    @BeforeEach
+    public void setUp() {
+        bag = new OffHeapDiceBag("Test Bag", 2, 256); // Small segments so storage spans several of them
+    }
+
+    @Test
+    public void testAddDie() {
+        int index = bag.addDie(20);
+        assertEquals(0, index, "First die should be stored at index 0");
+        assertEquals(1, bag.size(), "Bag should contain one die");
+        assertEquals(20, bag.getSides(index), "Die should have 20 sides");
+        assertEquals(20, bag.getFace(index), "New die should rest on its highest face");
+        assertEquals(0, bag.getHistory(index).length, "New die should have no history");
+    }
+
+    @Test
+    public void testRollRecordsHistoryAndStats() {
+        OffHeapDiceBag.DieView die = bag.getDie(bag.addDie(6));
+        int sum = 0;
+        for (int i = 0; i < 50; i++) {
+            int result = die.roll();
+            assertTrue(result >= 1 && result <= 6, "Roll result should be between 1 and 6");
+            assertEquals(result, die.getResult(), "Result should match the latest roll");
+            sum += result;
+        }
+        int[] history = die.getHistory();
+        assertEquals(50, history.length, "History should contain every roll");
+        assertEquals(history[49], die.getFace(), "Last history entry should be the current face");
+        assertEquals(sum / 50.0, die.getMean(), 0.0001, "Mean should be tracked from the roll summary");
+    }
+
+    @Test
+    public void testSameSeedRollsSameFaces() {
+        OffHeapDiceBag other = new OffHeapDiceBag("Other Bag", 2, 256);
+        int a = bag.addDie(42, 20, 12345L);
+        int b = other.addDie(42, 20, 12345L);
+        for (int i = 0; i < 20; i++) {
+            assertEquals(bag.roll(a), other.roll(b), "Dice with the same seed should roll the same faces");
+        }
+        assertEquals(bag.getSeed(a), other.getSeed(b), "Seeds should advance identically");
+    }
+
+    @Test
+    public void testInterleavedHistoriesStaySeparate() {
+        int d4 = bag.addDie(4);
+        int d8 = bag.addDie(8);
+        int d12 = bag.addDie(12);
+        for (int i = 0; i < 30; i++) {
+            bag.roll(d4);
+            bag.roll(d8);
+            bag.roll(d12);
+        }
+        for (int roll : bag.getHistory(d4)) assertTrue(roll >= 1 && roll <= 4, "d4 history should hold d4 rolls");
+        for (int roll : bag.getHistory(d8)) assertTrue(roll >= 1 && roll <= 8, "d8 history should hold d8 rolls");
+        assertEquals(30, bag.getHistory(d12).length, "Each die should keep its own history");
+    }
+
+    @Test
+    public void testGetDiceReusesAndCreates() {
+        bag.addDie(6);
+        List<OffHeapDiceBag.DieView> dice = bag.getDice(6, 3);
+        assertEquals(3, dice.size(), "Should return the requested number of dice");
+        assertEquals(0, dice.get(0).getIndex(), "Existing die should be reused");
+        assertEquals(3, bag.size(), "Missing dice should be added to the bag");
+    }
+
+    @Test
+    public void testSetFace() {
+        int index = bag.addDie(6);
+        assertTrue(bag.setFace(index, 4), "Setting face value to 4 should succeed");
+        assertEquals(4, bag.getFace(index), "Die face should be set to 4");
+        assertFalse(bag.setFace(index, 7), "Setting face value to 7 should fail");
+    }
+
+    @Test
+    public void testInvalidIndex() {
+        assertThrows(IndexOutOfBoundsException.class, () -> bag.getDie(0), "Empty bag should have no dice");
+    }
+
+    @Test
+    public void testLongHistoriesSpanSegments() {
+        int d6 = bag.addDie(6);
+        int d20 = bag.addDie(20);
+        int[] expected = new int[OffHeapDiceBag.CHUNK_ROLLS * 10 + 3];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = bag.roll(d6);
+            bag.roll(d20); // Interleave so the two dice's chunks alternate
+        }
+        assertArrayEquals(expected, bag.getHistory(d6), "History should read back across chunks and segments");
+    }
+
+    @Test
+    public void testSaveAndLoad() throws IOException, ClassNotFoundException {
+        int a = bag.addDie(20);
+        int b = bag.addDie(6);
+        for (int i = 0; i < 40; i++) {
+            bag.roll(a);
+            bag.roll(b);
+        }
+        bag.setFace(b, 1);
+        File file = File.createTempFile("offheap", ".bag");
+        try {
+            bag.saveBag(file.getPath());
+            OffHeapDiceBag loaded = OffHeapDiceBag.loadBag(file.getPath());
+            assertEquals("Test Bag", loaded.getNickname(), "Nickname should be restored");
+            assertEquals(2, loaded.size(), "Every die should be restored");
+            assertArrayEquals(bag.getHistory(a), loaded.getHistory(a), "History should be restored");
+            assertEquals(1, loaded.getFace(b), "Face should be restored");
+            assertEquals(bag.getDie(a).getMean(), loaded.getDie(a).getMean(), 0.0001, "Stats should be restored");
+            assertEquals(bag.roll(a), loaded.roll(a), "Restored seed should continue the same sequence");
+            assertEquals(1, loaded.getDice(6, 1).get(0).getIndex(), "Sides index should be rebuilt");
+        } finally {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package core;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class RollHistoryTest {
+
+    // Method that fills a history with random rolls, mirroring them into plain lists
+    private static RollHistory fill(int sides, int count, List<Integer> faces, List<String> users) {
+        RollHistory history = new RollHistory(sides);
+        Random rand = new Random(sides);
+        for (int i = 0; i < count; i++) {
+            int face = rand.nextInt(sides) + 1;
+            String user = (i / 7) % 3 == 0 ? null : "User" + (i / 7) % 3; // Runs of seven rolls per user
+            history.add(face, user);
+            faces.add(face);
+            users.add(user);
+        }
+        return history;
+    }
+
+    @Test
+    public void testFacesSurviveFreezing() {
+        for (int sides : new int[]{1, 2, 6, 20, 100, 1000}) {
+            List<Integer> faces = new ArrayList<>();
+            RollHistory history = fill(sides, 1000, faces, new ArrayList<>());
+            assertTrue(history.coldBlockCount() > 0, "Old rolls should be frozen into cold blocks");
+            assertEquals(faces, history, "Every face should read back for a d" + sides);
+        }
+    }
+
+    @Test
+    public void testUsersSurviveFreezing() {
+        List<String> users = new ArrayList<>();
+        RollHistory history = fill(20, 700, new ArrayList<>(), users);
+        assertEquals(users, history.users(), "Every user should read back in order");
+    }
+
+    @Test
+    public void testRecentRollsStayHot() {
+        RollHistory history = fill(20, RollHistory.BLOCK_SIZE * 2, new ArrayList<>(), new ArrayList<>());
+        assertEquals(0, history.coldBlockCount(), "Nothing should freeze until the hot tail is full");
+        history.add(1, "Daemon");
+        assertEquals(1, history.coldBlockCount(), "A full hot tail should freeze one block");
+        assertEquals(1, history.getLast(), "Latest roll should be readable");
+    }
+
+    @Test
+    public void testShortHistoryDoesNotAllocateFullTail() {
+        RollHistory history = new RollHistory(20);
+        assertEquals(0, history.hotCapacity(), "An unrolled die should allocate no hot tail");
+        history.add(7, "Daemon");
+        history.add(3, "Daemon");
+        assertTrue(history.hotCapacity() < RollHistory.HOT_CAPACITY, "A short history should not allocate the full tail");
+        for (int i = 0; i < RollHistory.HOT_CAPACITY; i++) history.add(1, "Daemon");
+        assertEquals(RollHistory.HOT_CAPACITY, history.hotCapacity(), "The tail should stop growing at its capacity");
+        assertEquals(List.of(7, 3, 1), history.subList(0, 3), "Growing the tail should keep earlier rolls");
+    }
+
+    @Test
+    public void testSubListAndArrays() {
+        List<Integer> faces = new ArrayList<>();
+        RollHistory history = fill(6, 500, faces, new ArrayList<>());
+        assertEquals(faces.subList(100, 409), history.subList(100, 409), "Sub-lists should span both tiers");
+        assertArrayEquals(faces.stream().mapToInt(Integer::intValue).toArray(), history.toIntArray(0, 500), "Primitive copy should match");
+        assertArrayEquals(faces.subList(200, 495).stream().mapToInt(Integer::intValue).toArray(), history.toIntArray(200, 495), "Primitive copy should span both tiers");
+        assertArrayEquals(faces.subList(0, 100).stream().mapToInt(Integer::intValue).toArray(), history.toIntArray(0, 100), "Primitive copy should stay within the cold tier");
+        assertArrayEquals(faces.subList(450, 500).stream().mapToInt(Integer::intValue).toArray(), history.toIntArray(450, 500), "Primitive copy should stay within the hot tail");
+        assertEquals(0, history.toIntArray(100, 100).length, "Empty ranges should copy nothing");
+    }
+
+    @Test
+    public void testSerialization() throws IOException, ClassNotFoundException {
+        List<Integer> faces = new ArrayList<>();
+        List<String> users = new ArrayList<>();
+        RollHistory history = fill(12, 600, faces, users);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+            oos.writeObject(history);
+        }
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            RollHistory copy = (RollHistory) ois.readObject();
+            assertEquals(faces, copy, "Faces should survive serialization");
+            assertEquals(users, copy.users(), "Users should survive serialization");
+        }
+    }
+
+    @Test
+    public void testFromPlainLists() {
+        RollHistory history = RollHistory.of(6, List.of(1, 2, 3), List.of("A", "B"));
+        assertEquals(List.of(1, 2, 3), history, "Faces should be copied from the plain list");
+        assertEquals(List.of("A", "B"), history.users().subList(0, 2), "Users should be copied from the plain list");
+        assertNull(history.getUser(2), "Missing users should be recorded as null");
+    }
+
+    @Test
+    public void testReadOnly() {
+        RollHistory history = new RollHistory(6);
+        assertThrows(UnsupportedOperationException.class, () -> history.add(3), "History should only grow by rolling");
+    }
+}
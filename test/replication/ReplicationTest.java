@@ -0,0 +1,196 @@
+package replication;
+
+import core.DiceBag;
+import core.Die;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import utils.SerializationUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.time.LocalDate;
+import java.util.*;
+
+public class ReplicationTest {
+
+    private static final long TIMEOUT = 5000;
+    private static final InetAddress LOOPBACK = InetAddress.getLoopbackAddress();
+
+    private DiceBag bag;
+    private ReplicationPrimary primary;
+    private final List<ReplicaNode> replicas = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        bag = new DiceBag("Main Bag");
+        bag.getDice(20, 2).forEach(die -> die.roll("Daemon")); // History from before replication began
+        primary = new ReplicationPrimary(bag, 0);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        replicas.forEach(ReplicaNode::close);
+        primary.close();
+    }
+
+    private ReplicaNode connect() throws IOException {
+        ReplicaNode replica = new ReplicaNode(LOOPBACK.getHostAddress(), primary.getPort());
+        replicas.add(replica);
+        return replica;
+    }
+
+    // Method that describes every die in a bag in index order, so two bags can be compared
+    private static List<String> describe(DiceBag bag) {
+        List<String> dice = new ArrayList<>();
+        for (int i = 0; i < bag.getAllDice().size(); i++) {
+            Die die = bag.getDie(i);
+            dice.add(die.getId() + " " + die.getNickname() + " " + die.getFace() + " " + die.getHistory());
+        }
+        return dice;
+    }
+
+    private void assertCaughtUp(ReplicaNode replica) throws InterruptedException {
+        assertTrue(replica.awaitSequence(primary.getLastSequence(), TIMEOUT), "Replica should catch up with the primary");
+        assertFalse(replica.isDiverged(), "Replica should not diverge");
+        assertEquals(describe(bag), replica.read(ReplicationTest::describe), "Replica should match the primary");
+    }
+
+    @Test
+    public void testLiveEventsAreReplayed() throws IOException, InterruptedException {
+        ReplicaNode replica = connect();
+        assertTrue(replica.awaitSequence(0, TIMEOUT), "Replica should load the snapshot");
+
+        Die d20 = bag.getDice(20, 1).get(0);
+        d20.setNickname("Old Reliable");
+        for (int i = 0; i < 20; i++) d20.roll("Daemon");
+        d20.blow();
+        d20.roll("Daemon");
+        d20.setFace(1);
+        bag.getDice(6, 3).forEach(die -> die.roll("Imp"));
+
+        assertCaughtUp(replica);
+    }
+
+    @Test
+    public void testLateReplicaCatchesUpFromCheckpoint() throws IOException, InterruptedException {
+        Die d20 = bag.getDice(20, 1).get(0);
+        d20.roll("Daemon");
+        d20.blow(); // Leaves the die's generator ahead of its seed in the snapshot
+        primary.checkpoint();
+        bag.getDice(8, 2).forEach(die -> die.roll("Imp"));
+
+        ReplicaNode replica = connect();
+        d20.roll("Daemon");
+        assertCaughtUp(replica);
+    }
+
+    @Test
+    public void testMultipleReplicasAndLag() throws IOException, InterruptedException {
+        ReplicaNode first = connect();
+        ReplicaNode second = connect();
+        for (Die die : bag.getDice(12, 4)) {
+            for (int i = 0; i < 50; i++) die.roll("Daemon");
+        }
+        assertCaughtUp(first);
+        assertCaughtUp(second);
+
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (primary.getReplicaLag().values().stream().anyMatch(lag -> lag > 0) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10); // Acknowledgements arrive asynchronously
+        }
+        assertEquals(2, primary.getReplicaCount(), "Both replicas should be connected");
+        assertTrue(primary.getReplicaLag().values().stream().allMatch(lag -> lag == 0), "Every replica should acknowledge every event");
+        assertTrue(first.getLagMillis() >= 0, "Replication delay should be measured");
+    }
+
+    @Test
+    public void testDiceSharingAnIdStayApart() throws IOException, InterruptedException {
+        File file = File.createTempFile("replicated", ".bag");
+        try {
+            bag.saveIndexedBag(file.getPath());
+            primary.close();
+            bag = DiceBag.loadBagLazily(file.getPath());
+            DiceBag twins = DiceBag.loadBagLazily(file.getPath());
+            for (int i = 0; i < 2; i++) {
+                bag.addDie(twins.getDie(i)); // Same id as the die already at index i
+            }
+            primary = new ReplicationPrimary(bag, 0);
+        } finally {
+            file.delete();
+        }
+
+        ReplicaNode replica = connect();
+        Die twin = bag.getDie(3);
+        twin.setNickname("Twin");
+        for (int i = 0; i < 10; i++) twin.roll("Daemon");
+        twin.blow();
+        twin.setFace(1);
+        assertCaughtUp(replica);
+        assertEquals(twin.getId(), bag.getDie(1).getId(), "Test needs two dice with the same id");
+        assertNull(replica.read(replicated -> replicated.getDie(1).getNickname()), "Changes should reach only the die they were made to");
+    }
+
+    @Test
+    public void testReplicaDisconnectsWhenPrimaryCloses() throws IOException, InterruptedException {
+        ReplicaNode replica = connect();
+        assertTrue(replica.awaitSequence(0, TIMEOUT), "Replica should load the snapshot");
+        primary.close();
+        assertFalse(replica.awaitSequence(Long.MAX_VALUE, TIMEOUT), "Replica should stop waiting once disconnected");
+        assertFalse(replica.isConnected(), "Replica should notice the primary closing");
+        int dice = replica.read(replicated -> replicated.getAllDice().size());
+        assertEquals(2, dice, "Replicated bag should stay readable");
+    }
+
+    @Test
+    public void testLogIsCheckpointedAutomatically() throws IOException, InterruptedException {
+        primary.close();
+        primary = new ReplicationPrimary(bag, LOOPBACK, 0, 50, ReplicationPrimary.DEFAULT_MAX_REPLICA_BACKLOG);
+        Die d20 = bag.getDice(20, 1).get(0);
+        d20.setNickname("Old Reliable");
+        for (int i = 0; i < 500; i++) d20.roll("Daemon");
+        d20.blow();
+        bag.getDice(6, 2).forEach(die -> die.setFace(1));
+
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (primary.getLogSize() >= 50 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10); // Checkpoints are taken in the background
+        }
+        assertTrue(primary.getLogSize() < 50, "Log should be folded into a snapshot every 50 events");
+
+        ReplicaNode replica = connect();
+        d20.roll("Daemon");
+        assertCaughtUp(replica);
+    }
+
+    @Test
+    public void testStalledReplicaIsDropped() throws IOException, InterruptedException {
+        primary.close();
+        primary = new ReplicationPrimary(bag, LOOPBACK, 0, ReplicationPrimary.DEFAULT_CHECKPOINT_INTERVAL, 16);
+        Socket stalled = new Socket(LOOPBACK, primary.getPort()); // Connects but never reads
+        try {
+            long deadline = System.currentTimeMillis() + TIMEOUT;
+            while (primary.getReplicaCount() == 0 && System.currentTimeMillis() < deadline) Thread.sleep(10);
+            assertEquals(1, primary.getReplicaCount(), "Stalled replica should connect");
+
+            Die d20 = bag.getDice(20, 1).get(0);
+            for (int i = 0; i < 2_000_000 && primary.getReplicaCount() > 0; i++) {
+                d20.roll("Daemon");
+            }
+            assertEquals(0, primary.getReplicaCount(), "Replica that falls too far behind should be dropped");
+        } finally {
+            stalled.close();
+        }
+    }
+
+    @Test
+    public void testForeignClassesAreRejected() throws IOException {
+        byte[] foreign = SerializationUtil.toBytes(LocalDate.of(2026, 1, 1));
+        assertThrows(IOException.class, () -> SerializationUtil.fromBytes(foreign, Object.class), "Classes outside the dice model should be rejected");
+        assertEquals(bag.getNickname(), SerializationUtil.fromBytes(SerializationUtil.toBytes(bag), DiceBag.class).getNickname(), "Dice bags should still be accepted");
+    }
+}
@@ -0,0 +1,50 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AliasTableTest {
+
+    private static final int SAMPLES = 200_000;
+
+    // Draws many samples and returns how often each outcome came up
+    private static double[] frequencies(AliasTable table, long seed) {
+        Random rand = new Random(seed);
+        double[] counts = new double[table.size()];
+        for (int i = 0; i < SAMPLES; i++) counts[table.sample(rand)]++;
+        for (int i = 0; i < counts.length; i++) counts[i] /= SAMPLES;
+        return counts;
+    }
+
+    // Test that 2d6 totals are drawn as often as the exact distribution says
+    @Test
+    public void testSampleMatchesSumDistribution() {
+        double[] distribution = StatsUtil.getSumDistribution(new int[]{6, 6});
+        double[] frequencies = frequencies(new AliasTable(distribution), 42);
+        for (int i = 0; i < distribution.length; i++) {
+            assertEquals(distribution[i], frequencies[i], 0.005, "Total " + (i + 2) + " should be drawn at its exact rate");
+        }
+    }
+
+    // Test a skewed distribution with unnormalized weights, where most columns need an alias
+    @Test
+    public void testSampleMatchesSkewedWeights() {
+        double[] weights = {70, 20, 0, 10};
+        double[] frequencies = frequencies(new AliasTable(weights), 7);
+        assertEquals(0.7, frequencies[0], 0.005);
+        assertEquals(0.2, frequencies[1], 0.005);
+        assertEquals(0.0, frequencies[2], "An outcome with no weight should never be drawn");
+        assertEquals(0.1, frequencies[3], 0.005);
+    }
+
+    // Test that invalid weights are rejected
+    @Test
+    public void testRejectsInvalidWeights() {
+        assertThrows(IllegalArgumentException.class, () -> new AliasTable(new double[0]));
+        assertThrows(IllegalArgumentException.class, () -> new AliasTable(new double[]{1, -1}));
+        assertThrows(IllegalArgumentException.class, () -> new AliasTable(new double[]{0, 0}));
+    }
+}
@@ -2,6 +2,8 @@ package utils;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class StatsUtilTest {
@@ -61,4 +63,13 @@ public class StatsUtilTest {
     public void testGetStdDev() {
         assertEquals(1.7078, StatsUtil.getStdDev(6), 0.001); // StdDev for a d6 = sqrt(Variance)
     }
+
+    // Test for getSumDistribution
+    @Test
+    public void testGetSumDistribution() {
+        double[] distribution = StatsUtil.getSumDistribution(new int[]{6, 6});
+        assertEquals(11, distribution.length); // 2d6 totals range from 2 to 12
+        assertEquals(6 / 36.0, distribution[5], 0.001); // A total of 7 has 6 ways out of 36
+        assertEquals(1.0, Arrays.stream(distribution).sum(), 0.001);
+    }
 }